@@ -0,0 +1,99 @@
+package com.billflow.benchmark;
+
+import com.billflow.dto.InvoiceRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Ids and serials of the seeded data, and random operation inputs drawn from them
+public class BenchmarkData {
+
+	private final List<Long> clientIds;
+
+	// Quantity-tracked products with stock enough to never run out while invoices are created
+	private final List<Long> quantityProductIds;
+
+	private final Map<Long, BigDecimal> prices;
+
+	private final List<Long> productIds;
+
+	private final List<String> serialNumbers;
+
+	private final List<String> soldSerialNumbers;
+
+	// Serials still on the shelf, handed out once each to operations that sell them
+	private final Queue<InStockSerial> inStockSerials;
+
+	public BenchmarkData(List<Long> clientIds, List<Long> quantityProductIds, Map<Long, BigDecimal> prices,
+			List<String> serialNumbers, List<String> soldSerialNumbers, Queue<InStockSerial> inStockSerials) {
+		this.clientIds = clientIds;
+		this.quantityProductIds = quantityProductIds;
+		this.prices = prices;
+		this.productIds = List.copyOf(prices.keySet());
+		this.serialNumbers = serialNumbers;
+		this.soldSerialNumbers = soldSerialNumbers;
+		this.inStockSerials = inStockSerials;
+	}
+
+	public record InStockSerial(Long productId, String serialNumber) {
+	}
+
+	// One to three quantity lines, so invoices can be created for as long as the benchmark runs
+	public InvoiceRequest newInvoiceRequest() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		InvoiceRequest request = new InvoiceRequest();
+		request.setClientId(pick(clientIds));
+		request.setDate(LocalDateTime.now());
+		request.setStatus("pending");
+		List<InvoiceRequest.InvoiceItemRequest> items = new ArrayList<>();
+		for (int i = random.nextInt(1, 4); i > 0; i--) {
+			Long productId = pick(quantityProductIds);
+			InvoiceRequest.InvoiceItemRequest item = new InvoiceRequest.InvoiceItemRequest();
+			item.setProductId(productId);
+			item.setQuantity(random.nextInt(1, 6));
+			item.setPrice(prices.get(productId));
+			items.add(item);
+		}
+		request.setItems(items);
+		return request;
+	}
+
+	// A counter sale of one battery by serial plus accessories; accessories only once the shelf is empty
+	public InvoiceRequest newCounterSaleRequest() {
+		InvoiceRequest request = newInvoiceRequest();
+		InStockSerial serial = inStockSerials.poll();
+		if (serial != null) {
+			InvoiceRequest.InvoiceItemRequest item = new InvoiceRequest.InvoiceItemRequest();
+			item.setProductId(serial.productId());
+			item.setQuantity(1);
+			item.setPrice(prices.get(serial.productId()));
+			item.setSerialNumbers(List.of(serial.serialNumber()));
+			request.getItems().add(0, item);
+		}
+		return request;
+	}
+
+	// A seeded serial, sold or still in stock
+	public String randomSerialNumber() {
+		return pick(serialNumbers);
+	}
+
+	// A serial sold by a seeded invoice, so it has a warranty
+	public String randomSoldSerialNumber() {
+		return pick(soldSerialNumbers);
+	}
+
+	public Long randomProductId() {
+		return pick(productIds);
+	}
+
+	private static <T> T pick(List<T> values) {
+		return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+	}
+
+}
@@ -0,0 +1,176 @@
+package com.billflow.benchmark;
+
+import com.billflow.dto.InvoiceImportReport;
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.Client;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceImportService;
+import com.billflow.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Seeds clients, suppliers, products with serials and a year of invoices. Invoices go through the bulk import,
+// so they are validated and stocked exactly like production data. Seeded with a fixed seed for repeatable runs
+public class BenchmarkDataGenerator {
+
+	private static final String[] STATUSES = {"paid", "pending", "overdue"};
+
+	private static final String[] CATEGORIES = {"Car Battery", "Bike Battery", "Inverter Battery", "Accessories"};
+
+	private final ClientRepository clientRepository;
+
+	private final SupplierRepository supplierRepository;
+
+	private final ProductService productService;
+
+	private final InvoiceImportService invoiceImportService;
+
+	private final ObjectMapper objectMapper;
+
+	private final Random random = new Random(42);
+
+	public BenchmarkDataGenerator(ApplicationContext context) {
+		this.clientRepository = context.getBean(ClientRepository.class);
+		this.supplierRepository = context.getBean(SupplierRepository.class);
+		this.productService = context.getBean(ProductService.class);
+		this.invoiceImportService = context.getBean(InvoiceImportService.class);
+		this.objectMapper = context.getBean(ObjectMapper.class);
+	}
+
+	public BenchmarkData seed(int clients, int products, int serialsPerBattery, int invoices) throws Exception {
+		List<Long> clientIds = new ArrayList<>();
+		List<Client> clientBatch = new ArrayList<>();
+		for (int i = 0; i < clients; i++) {
+			Client client = new Client();
+			client.setName("Client " + i);
+			client.setPhone(String.format("9%09d", i));
+			clientBatch.add(client);
+		}
+		clientRepository.saveAll(clientBatch).forEach(client -> clientIds.add(client.getId()));
+
+		List<Supplier> suppliers = new ArrayList<>();
+		for (int i = 0; i < Math.max(1, products / 20); i++) {
+			Supplier supplier = new Supplier();
+			supplier.setName("Supplier " + i);
+			supplier.setPhone(String.format("8%09d", i));
+			suppliers.add(supplierRepository.save(supplier));
+		}
+
+		// Every other product is a battery with its own serials; the rest are sold by quantity
+		List<Long> quantityProductIds = new ArrayList<>();
+		Map<Long, BigDecimal> prices = new HashMap<>();
+		Map<Long, Deque<String>> unsoldSerials = new HashMap<>();
+		List<String> serialNumbers = new ArrayList<>();
+		for (int i = 0; i < products; i++) {
+			boolean battery = i % 2 == 0;
+			Product product = new Product();
+			product.setName((battery ? "Battery " : "Accessory ") + i);
+			product.setCategory(battery ? CATEGORIES[i % 3] : CATEGORIES[3]);
+			product.setPrice(BigDecimal.valueOf(battery ? 3000 + random.nextInt(7000) : 50 + random.nextInt(500)));
+			product.setSupplier(suppliers.get(i % suppliers.size()));
+			List<String> serials = new ArrayList<>();
+			if (battery) {
+				product.setIsBattery(true);
+				product.setWarrantyDurationMonths(12 + 12 * random.nextInt(3));
+				for (int j = 0; j < serialsPerBattery; j++) {
+					serials.add(String.format("BAT%05d%06d", i, j));
+				}
+				product.setSerialNumbers(new ArrayList<>(serials));
+			} else {
+				product.setStock(Integer.MAX_VALUE / 2);
+			}
+			product = productService.createProduct(product);
+			prices.put(product.getId(), product.getPrice());
+			if (battery) {
+				unsoldSerials.put(product.getId(), new ArrayDeque<>(serials));
+				serialNumbers.addAll(serials);
+			} else {
+				quantityProductIds.add(product.getId());
+			}
+		}
+
+		List<String> soldSerialNumbers = importInvoices(invoices, clientIds, quantityProductIds, prices, unsoldSerials);
+
+		List<BenchmarkData.InStockSerial> inStock = new ArrayList<>();
+		unsoldSerials.forEach((productId, serials) ->
+				serials.forEach(serial -> inStock.add(new BenchmarkData.InStockSerial(productId, serial))));
+		Collections.shuffle(inStock, random);
+		return new BenchmarkData(clientIds, quantityProductIds, prices, serialNumbers, soldSerialNumbers,
+				new ConcurrentLinkedQueue<>(inStock));
+	}
+
+	// Spread over the past year; at most half of each battery's serials are sold so the report sees both states
+	private List<String> importInvoices(int invoices, List<Long> clientIds, List<Long> quantityProductIds,
+			Map<Long, BigDecimal> prices, Map<Long, Deque<String>> unsoldSerials) throws Exception {
+		List<String> soldSerialNumbers = new ArrayList<>();
+		List<Long> batteryIds = new ArrayList<>(unsoldSerials.keySet());
+		Map<Long, Integer> keepInStock = new HashMap<>();
+		unsoldSerials.forEach((id, serials) -> keepInStock.put(id, serials.size() / 2));
+
+		ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+		LocalDateTime now = LocalDateTime.now();
+		for (int i = 0; i < invoices; i++) {
+			InvoiceRequest request = new InvoiceRequest();
+			request.setClientId(clientIds.get(random.nextInt(clientIds.size())));
+			request.setDate(now.minusMinutes(random.nextInt(365 * 24 * 60)));
+			request.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+			List<InvoiceRequest.InvoiceItemRequest> items = new ArrayList<>();
+			if (!batteryIds.isEmpty()) {
+				Long batteryId = batteryIds.get(random.nextInt(batteryIds.size()));
+				Deque<String> serials = unsoldSerials.get(batteryId);
+				if (serials.size() > keepInStock.get(batteryId)) {
+					String serial = serials.poll();
+					soldSerialNumbers.add(serial);
+					items.add(item(batteryId, 1, prices.get(batteryId), List.of(serial)));
+				}
+			}
+			if (!quantityProductIds.isEmpty()) {
+				for (int j = random.nextInt(items.isEmpty() ? 1 : 0, 3); j > 0; j--) {
+					Long productId = quantityProductIds.get(random.nextInt(quantityProductIds.size()));
+					items.add(item(productId, 1 + random.nextInt(5), prices.get(productId), null));
+				}
+			}
+			if (items.isEmpty()) {
+				continue;
+			}
+			request.setItems(items);
+			ndjson.write(objectMapper.writeValueAsBytes(request));
+			ndjson.write('\n');
+		}
+
+		InvoiceImportReport report = invoiceImportService.importNdjson(new ByteArrayInputStream(ndjson.toByteArray()));
+		if (report.getFailed() > 0) {
+			throw new IllegalStateException("Seeding failed for " + report.getFailed() + " invoices: " + report.getErrors());
+		}
+		return soldSerialNumbers;
+	}
+
+	private static InvoiceRequest.InvoiceItemRequest item(Long productId, int quantity, BigDecimal price,
+			List<String> serialNumbers) {
+		InvoiceRequest.InvoiceItemRequest item = new InvoiceRequest.InvoiceItemRequest();
+		item.setProductId(productId);
+		item.setQuantity(quantity);
+		item.setPrice(price);
+		item.setSerialNumbers(serialNumbers);
+		return item;
+	}
+
+}
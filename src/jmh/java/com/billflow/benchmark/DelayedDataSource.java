@@ -0,0 +1,74 @@
+package com.billflow.benchmark;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Delays every statement execution, standing in for the round trip to a remote database that the in-memory H2
+// database does not have. The request thread blocks in the JDBC call just as it would waiting on the network
+public class DelayedDataSource extends DelegatingDataSource {
+
+	private final Duration delay;
+
+	public DelayedDataSource(DataSource target, Duration delay) {
+		super(target);
+		this.delay = delay;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return delayed(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return delayed(super.getConnection(username, password));
+	}
+
+	private Connection delayed(Connection connection) {
+		return proxy(Connection.class, connection, (method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+				return delayed(method.getReturnType(), statement);
+			}
+			return result;
+		});
+	}
+
+	// One delay per execute call, so a JDBC batch pays a single round trip like it does over the network
+	private Object delayed(Class<?> type, Statement statement) {
+		return proxy(type, statement, (method, args) -> {
+			if (method.getName().startsWith("execute")) {
+				TimeUnit.NANOSECONDS.sleep(delay.toNanos());
+			}
+			return invoke(statement, method, args);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+		return (T) Proxy.newProxyInstance(DelayedDataSource.class.getClassLoader(), new Class<?>[] {type},
+				(proxy, method, args) -> handler.handle(method, args));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private interface Handler {
+		Object handle(Method method, Object[] args) throws Throwable;
+	}
+
+}
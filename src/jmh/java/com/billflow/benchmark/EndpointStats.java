@@ -0,0 +1,74 @@
+package com.billflow.benchmark;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Latencies of one endpoint over the measured window. Every sample is kept, so percentiles are exact
+public class EndpointStats {
+
+	private final String endpoint;
+
+	private long[] latenciesMicros = new long[1024];
+
+	private int count;
+
+	private int errors;
+
+	public EndpointStats(String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	public synchronized void record(long latencyMicros, boolean error) {
+		if (count == latenciesMicros.length) {
+			latenciesMicros = Arrays.copyOf(latenciesMicros, count * 2);
+		}
+		latenciesMicros[count++] = latencyMicros;
+		if (error) {
+			errors++;
+		}
+	}
+
+	public String endpoint() {
+		return endpoint;
+	}
+
+	public synchronized Summary summarize(double seconds) {
+		long[] sorted = Arrays.copyOf(latenciesMicros, count);
+		Arrays.sort(sorted);
+		return new Summary(endpoint, count, errors, count / seconds,
+				percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+				count == 0 ? 0 : sorted[count - 1] / 1000.0);
+	}
+
+	// Nearest-rank percentile, in milliseconds
+	private static double percentile(long[] sorted, int percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+		return sorted[Math.max(rank, 1) - 1] / 1000.0;
+	}
+
+	public record Summary(String endpoint, int count, int errors, double throughput, double p50, double p95,
+			double p99, double max) {
+
+		public double errorRate() {
+			return count == 0 ? 0 : (double) errors / count;
+		}
+
+		public Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("endpoint", endpoint);
+			map.put("count", count);
+			map.put("errors", errors);
+			map.put("throughput", throughput);
+			map.put("p50Ms", p50);
+			map.put("p95Ms", p95);
+			map.put("p99Ms", p99);
+			map.put("maxMs", max);
+			return map;
+		}
+	}
+
+}
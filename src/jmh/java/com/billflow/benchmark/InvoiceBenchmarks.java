@@ -0,0 +1,42 @@
+package com.billflow.benchmark;
+
+import com.billflow.model.Invoice;
+import com.billflow.service.InvoiceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Throughput in ops/ms; SampleTime adds latency percentiles (p50 to p99.99) in ms/op
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvoiceBenchmarks {
+
+	private InvoiceService invoiceService;
+
+	private BenchmarkData data;
+
+	@Setup
+	public void setUp(SeededApplication application) {
+		invoiceService = application.bean(InvoiceService.class);
+		data = application.data();
+	}
+
+	@Benchmark
+	public Invoice createInvoice() {
+		return invoiceService.createInvoice(data.newInvoiceRequest());
+	}
+
+}
@@ -0,0 +1,327 @@
+package com.billflow.benchmark;
+
+import com.billflow.BillflowApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Drives the REST API of a locally started, seeded application with a closed-loop mix of counter sales, warranty
+// lookups, dashboard loads and catalog browsing, and reports latency percentiles and throughput per endpoint.
+// Exits with status 1 when an endpoint is over its latency budget or the error rate is exceeded, failing the build.
+// Settings are in loadtest.properties; any of them can be overridden with a system property, e.g. -Dloadtest.users=32.
+// Application settings can be too, e.g. -Dspring.threads.virtual.enabled=true to compare thread models
+public class LoadTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	private static final String[] ENDPOINTS = {"create-invoice", "warranty-by-serial", "serial-report",
+			"invoice-stats", "invoice-summaries", "sales-summary", "warranty-expiring", "product-list", "product-by-id"};
+
+	private final Properties settings;
+
+	private final BenchmarkData data;
+
+	private final ObjectMapper objectMapper;
+
+	private final URI baseUri;
+
+	// What the run was measured against: Java version, thread model, pool size and database latency
+	private final Map<String, Object> setup;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(TIMEOUT)
+			.build();
+
+	private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+	private final List<WeightedOperation> mix = new ArrayList<>();
+
+	// Only requests started inside [measureFrom, measureUntil) are recorded; the warmup before it is not
+	private volatile long measureFrom;
+
+	private volatile long measureUntil;
+
+	public LoadTest(Properties settings, BenchmarkData data, ObjectMapper objectMapper, URI baseUri,
+			Map<String, Object> setup) {
+		this.settings = settings;
+		this.data = data;
+		this.objectMapper = objectMapper;
+		this.baseUri = baseUri;
+		this.setup = setup;
+		for (String endpoint : ENDPOINTS) {
+			stats.put(endpoint, new EndpointStats(endpoint));
+		}
+		mix.add(new WeightedOperation(intSetting("loadtest.mix.counter-sale"), this::counterSale));
+		mix.add(new WeightedOperation(intSetting("loadtest.mix.warranty-lookup"), this::warrantyLookup));
+		mix.add(new WeightedOperation(intSetting("loadtest.mix.dashboard"), this::dashboard));
+		mix.add(new WeightedOperation(intSetting("loadtest.mix.catalog"), this::catalog));
+	}
+
+	public static void main(String[] args) throws Exception {
+		Properties settings = settings();
+		Duration dbLatency = DurationStyle.detectAndParse(settings.getProperty("loadtest.db-latency"));
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(BillflowApplication.class)
+				.properties(
+						"server.port=0",
+						"spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+						"logging.level.root=WARN",
+						// Background jobs would compete with the measured requests
+						"billflow.warranty-expiry.cron=-",
+						"billflow.invoice-stats.reconcile-cron=-",
+						"billflow.serial-index.rebuild-interval-ms=86400000")
+				.initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+						delayedDataSource(dbLatency)))
+				// The test properties turn SQL logging on, and outrank the defaults above
+				.run("--spring.jpa.show-sql=false");
+		List<String> breaches;
+		try {
+			BenchmarkData data = new BenchmarkDataGenerator(context).seed(
+					Integer.parseInt(settings.getProperty("loadtest.clients")),
+					Integer.parseInt(settings.getProperty("loadtest.products")),
+					Integer.parseInt(settings.getProperty("loadtest.serials-per-battery")),
+					Integer.parseInt(settings.getProperty("loadtest.invoices")));
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			Environment environment = context.getEnvironment();
+			Map<String, Object> setup = new LinkedHashMap<>();
+			setup.put("java", Runtime.version().toString());
+			// Spring only switches to virtual threads on Java 21 and later
+			setup.put("virtualThreads", Runtime.version().feature() >= 21
+					&& environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false));
+			setup.put("connectionPoolSize", environment.getProperty("spring.datasource.hikari.maximum-pool-size", "10"));
+			setup.put("dbLatency", dbLatency.toString());
+			breaches = new LoadTest(settings, data, context.getBean(ObjectMapper.class),
+					URI.create("http://localhost:" + port), setup).run();
+		} finally {
+			context.close();
+		}
+		boolean failOnBudget = Boolean.parseBoolean(settings.getProperty("loadtest.fail-on-budget"));
+		System.exit(breaches.isEmpty() || !failOnBudget ? 0 : 1);
+	}
+
+	private static BeanPostProcessor delayedDataSource(Duration dbLatency) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return bean instanceof DataSource dataSource && !dbLatency.isZero()
+						? new DelayedDataSource(dataSource, dbLatency)
+						: bean;
+			}
+		};
+	}
+
+	// Runs the mix and returns the budget breaches, empty when the run passed
+	public List<String> run() throws Exception {
+		int users = intSetting("loadtest.users");
+		Duration warmup = DurationStyle.detectAndParse(settings.getProperty("loadtest.warmup"));
+		Duration duration = DurationStyle.detectAndParse(settings.getProperty("loadtest.duration"));
+		System.out.printf("Load test: %d users, %s warmup, %s measured, %s%n", users, warmup, duration, setup);
+
+		measureFrom = System.nanoTime() + warmup.toNanos();
+		measureUntil = measureFrom + duration.toNanos();
+		ProcessStats processStats = new ProcessStats();
+		ExecutorService executor = Executors.newFixedThreadPool(users);
+		Map<String, Object> process;
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int i = 0; i < users; i++) {
+				workers.add(executor.submit(() -> {
+					while (System.nanoTime() < measureUntil) {
+						nextOperation().run();
+					}
+					return null;
+				}));
+			}
+			TimeUnit.NANOSECONDS.sleep(measureFrom - System.nanoTime());
+			processStats.start();
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} finally {
+			process = processStats.stop();
+			executor.shutdownNow();
+		}
+
+		double seconds = duration.toNanos() / 1e9;
+		List<EndpointStats.Summary> summaries = new ArrayList<>();
+		for (EndpointStats endpointStats : stats.values()) {
+			summaries.add(endpointStats.summarize(seconds));
+		}
+		List<String> breaches = checkBudgets(summaries);
+		print(summaries, process, breaches);
+		writeResult(users, warmup, duration, summaries, process, breaches);
+		return breaches;
+	}
+
+	private void counterSale() throws Exception {
+		send("create-invoice", HttpRequest.newBuilder(baseUri.resolve("/api/invoices"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(data.newCounterSaleRequest()))));
+	}
+
+	// A customer comes back with a battery: its warranty, then the sale it came from
+	private void warrantyLookup() throws Exception {
+		String serialNumber = data.randomSoldSerialNumber();
+		get("warranty-by-serial", "/api/warranty/serial/" + serialNumber);
+		get("serial-report", "/api/reports/serial/" + serialNumber);
+	}
+
+	// The requests the dashboard page makes when it loads
+	private void dashboard() throws Exception {
+		LocalDateTime now = LocalDateTime.now();
+		get("invoice-stats", "/api/invoices/stats");
+		get("invoice-summaries", "/api/invoices/summaries?size=20");
+		get("sales-summary", "/api/reports/sales-summary?startDate="
+				+ DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(now.minusDays(30))
+				+ "&endDate=" + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(now));
+		get("warranty-expiring", "/api/warranty/expiring?days=30");
+	}
+
+	private void catalog() throws Exception {
+		get("product-list", "/api/products");
+		get("product-by-id", "/api/products/" + data.randomProductId());
+	}
+
+	private void get(String endpoint, String path) throws InterruptedException {
+		send(endpoint, HttpRequest.newBuilder(baseUri.resolve(path)).GET());
+	}
+
+	// Connection failures and timeouts count as errors, with the time spent waiting as their latency
+	private void send(String endpoint, HttpRequest.Builder request) throws InterruptedException {
+		long started = System.nanoTime();
+		boolean error;
+		try {
+			HttpResponse<Void> response = client.send(request.timeout(TIMEOUT).build(),
+					HttpResponse.BodyHandlers.discarding());
+			error = response.statusCode() >= 400;
+		} catch (IOException e) {
+			error = true;
+		}
+		if (started >= measureFrom && started < measureUntil) {
+			stats.get(endpoint).record((System.nanoTime() - started) / 1000, error);
+		}
+	}
+
+	private Operation nextOperation() {
+		int total = mix.stream().mapToInt(WeightedOperation::weight).sum();
+		int pick = ThreadLocalRandom.current().nextInt(total);
+		for (WeightedOperation operation : mix) {
+			pick -= operation.weight();
+			if (pick < 0) {
+				return operation.operation();
+			}
+		}
+		throw new IllegalStateException("Empty operation mix");
+	}
+
+	// Budgets are loadtest.budget.<endpoint>.p95-ms / .p99-ms; endpoints without one are reported but not checked
+	private List<String> checkBudgets(List<EndpointStats.Summary> summaries) {
+		double maxErrorRate = Double.parseDouble(settings.getProperty("loadtest.max-error-rate"));
+		List<String> breaches = new ArrayList<>();
+		for (EndpointStats.Summary summary : summaries) {
+			if (summary.count() == 0) {
+				continue;
+			}
+			checkBudget(breaches, summary.endpoint(), "p95", summary.p95());
+			checkBudget(breaches, summary.endpoint(), "p99", summary.p99());
+			if (summary.errorRate() > maxErrorRate) {
+				breaches.add(String.format("%s error rate %.4f over budget %.4f",
+						summary.endpoint(), summary.errorRate(), maxErrorRate));
+			}
+		}
+		return breaches;
+	}
+
+	private void checkBudget(List<String> breaches, String endpoint, String percentile, double actual) {
+		String budget = settings.getProperty("loadtest.budget." + endpoint + "." + percentile + "-ms");
+		if (budget != null && actual > Double.parseDouble(budget)) {
+			breaches.add(String.format("%s %s %.1f ms over budget %s ms", endpoint, percentile, actual, budget));
+		}
+	}
+
+	private static void print(List<EndpointStats.Summary> summaries, Map<String, Object> process,
+			List<String> breaches) {
+		System.out.printf("%n%-20s %8s %9s %9s %9s %9s %9s %7s%n",
+				"Endpoint", "Count", "Req/s", "p50 ms", "p95 ms", "p99 ms", "Max ms", "Errors");
+		for (EndpointStats.Summary summary : summaries) {
+			System.out.printf("%-20s %8d %9.1f %9.1f %9.1f %9.1f %9.1f %7d%n", summary.endpoint(), summary.count(),
+					summary.throughput(), summary.p50(), summary.p95(), summary.p99(), summary.max(), summary.errors());
+		}
+		System.out.println();
+		System.out.println("Process: " + process);
+		if (breaches.isEmpty()) {
+			System.out.println("All endpoints within budget");
+		} else {
+			breaches.forEach(breach -> System.out.println("BUDGET EXCEEDED: " + breach));
+		}
+	}
+
+	private void writeResult(int users, Duration warmup, Duration duration, List<EndpointStats.Summary> summaries,
+			Map<String, Object> process, List<String> breaches) throws IOException {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("users", users);
+		result.put("warmup", warmup.toString());
+		result.put("duration", duration.toString());
+		result.put("setup", setup);
+		result.put("endpoints", summaries.stream().map(EndpointStats.Summary::toMap).toList());
+		result.put("process", process);
+		result.put("breaches", breaches);
+		File file = new File(settings.getProperty("loadtest.result"));
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, result);
+		System.out.println("Results written to " + file);
+	}
+
+	private int intSetting(String name) {
+		return Integer.parseInt(settings.getProperty(name));
+	}
+
+	private static Properties settings() throws IOException {
+		Properties settings = new Properties();
+		try (InputStream in = LoadTest.class.getResourceAsStream("/loadtest.properties")) {
+			settings.load(in);
+		}
+		for (String name : System.getProperties().stringPropertyNames()) {
+			if (name.startsWith("loadtest.")) {
+				settings.setProperty(name, System.getProperty(name));
+			}
+		}
+		return settings;
+	}
+
+	private interface Operation {
+		void run() throws Exception;
+	}
+
+	private record WeightedOperation(int weight, Operation operation) {
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.billflow.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Heap, platform threads and garbage collection of this JVM over the measured window. The application and the load
+// generator share the JVM, so figures are for comparing runs with the same users, not for reading on their own.
+// Virtual threads are not platform threads and do not show up in the thread count
+public class ProcessStats {
+
+	private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+
+	private long gcCountBefore;
+
+	private long gcMillisBefore;
+
+	private long peakHeapUsed;
+
+	private int peakThreads;
+
+	public void start() {
+		gcCountBefore = gcCount();
+		gcMillisBefore = gcMillis();
+		sampler.scheduleAtFixedRate(this::sample, 0, 250, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized Map<String, Object> stop() {
+		sampler.shutdownNow();
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("peakHeapUsedMb", peakHeapUsed / (1024 * 1024));
+		stats.put("peakPlatformThreads", peakThreads);
+		stats.put("gcCount", gcCount() - gcCountBefore);
+		stats.put("gcTimeMs", gcMillis() - gcMillisBefore);
+		return stats;
+	}
+
+	private synchronized void sample() {
+		peakHeapUsed = Math.max(peakHeapUsed, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+		peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+	}
+
+	private static long gcCount() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+	}
+
+	private static long gcMillis() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.billflow.benchmark;
+
+import com.billflow.model.Invoice;
+import com.billflow.model.Product;
+import com.billflow.repository.ProductRepository;
+import com.billflow.service.InvoiceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Product reads from the second-level cache while invoices move stock on other threads, so each sale's
+// effect on the cached products shows in the read throughput
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductCacheBenchmarks {
+
+	private ProductRepository productRepository;
+
+	private InvoiceService invoiceService;
+
+	private BenchmarkData data;
+
+	@Setup
+	public void setUp(SeededApplication application) {
+		productRepository = application.bean(ProductRepository.class);
+		invoiceService = application.bean(InvoiceService.class);
+		data = application.data();
+	}
+
+	// A product page
+	@Benchmark
+	@Group("readsDuringSales")
+	@GroupThreads(3)
+	public Product findProduct() {
+		return productRepository.findById(data.randomProductId()).orElseThrow();
+	}
+
+	// A battery catalog listing, from the query cache
+	@Benchmark
+	@Group("readsDuringSales")
+	@GroupThreads(2)
+	public List<Product> listBatteries() {
+		return productRepository.findByIsBattery(true);
+	}
+
+	@Benchmark
+	@Group("readsDuringSales")
+	@GroupThreads(1)
+	public Invoice createInvoice() {
+		return invoiceService.createInvoice(data.newInvoiceRequest());
+	}
+
+}
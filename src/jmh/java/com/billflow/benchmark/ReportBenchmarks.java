@@ -0,0 +1,55 @@
+package com.billflow.benchmark;
+
+import com.billflow.dto.BatterySerialReportDTO;
+import com.billflow.dto.ProductPerformanceDTO;
+import com.billflow.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Throughput in ops/ms; SampleTime adds latency percentiles (p50 to p99.99) in ms/op
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmarks {
+
+	private ReportService reportService;
+
+	private BenchmarkData data;
+
+	@Setup
+	public void setUp(SeededApplication application) {
+		reportService = application.bean(ReportService.class);
+		data = application.data();
+	}
+
+	// First page of the last quarter, as the reports screen opens it
+	@Benchmark
+	public Page<ProductPerformanceDTO> productPerformance() {
+		LocalDateTime now = LocalDateTime.now();
+		return reportService.getProductPerformance(now.minusDays(90), now, PageRequest.of(0, 50));
+	}
+
+	// Lookup of a scanned serial number
+	@Benchmark
+	public List<BatterySerialReportDTO> batterySerialReport() {
+		return reportService.getBatterySerialReport(data.randomSerialNumber(), null, 50);
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.billflow.benchmark;
+
+import com.billflow.BillflowApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// The application without its web layer, on a fresh in-memory H2 database seeded once per fork.
+// Volumes are JMH parameters, e.g. -p invoices=50000
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+	@Param("1000")
+	public int clients;
+
+	@Param("200")
+	public int products;
+
+	@Param("100")
+	public int serialsPerBattery;
+
+	@Param("10000")
+	public int invoices;
+
+	private ConfigurableApplicationContext context;
+
+	private BenchmarkData data;
+
+	@Setup(Level.Trial)
+	public void start() throws Exception {
+		context = new SpringApplicationBuilder(BillflowApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+						"logging.level.root=WARN",
+						// Background jobs would compete with the measured operations
+						"billflow.warranty-expiry.cron=-",
+						"billflow.invoice-stats.reconcile-cron=-",
+						"billflow.serial-index.rebuild-interval-ms=86400000")
+				// The test properties turn SQL logging on, and outrank the defaults above
+				.run("--spring.jpa.show-sql=false");
+		data = new BenchmarkDataGenerator(context).seed(clients, products, serialsPerBattery, invoices);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	public <T> T bean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	public BenchmarkData data() {
+		return data;
+	}
+
+}
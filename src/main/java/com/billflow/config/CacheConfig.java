@@ -0,0 +1,68 @@
+package com.billflow.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+// Read-through caches for master data. Puts and evictions made inside a transaction only take effect once it has
+// committed, so an eviction cannot be undone by a reader that still sees the old row, and a rolled back write leaves
+// the cache alone. Writes made by other instances are only seen here once the entry expires
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Client by id, and the full client list
+    public static final String CLIENTS = "clients";
+    public static final String CLIENT_LIST = "clientList";
+
+    // Supplier by id, and the full supplier list
+    public static final String SUPPLIERS = "suppliers";
+    public static final String SUPPLIER_LIST = "supplierList";
+
+    // Product by id with its in-stock serials, and the catalog listings (all, by category, batteries). Both carry
+    // stock figures, so every stock movement evicts them
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_CATALOG = "productCatalog";
+
+    @Value("${billflow.cache.master-data.maximum-size:10000}")
+    private long masterDataMaximumSize;
+
+    @Value("${billflow.cache.master-data.expire-after-write:PT10M}")
+    private Duration masterDataExpireAfterWrite;
+
+    @Value("${billflow.cache.catalog.maximum-size:1000}")
+    private long catalogMaximumSize;
+
+    @Value("${billflow.cache.catalog.expire-after-write:PT1M}")
+    private Duration catalogExpireAfterWrite;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Only the caches below exist; a typo in a cache name fails instead of creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+        for (String name : new String[] {CLIENTS, CLIENT_LIST, SUPPLIERS, SUPPLIER_LIST}) {
+            cacheManager.registerCustomCache(name, cache(masterDataMaximumSize, masterDataExpireAfterWrite).build());
+        }
+        for (String name : new String[] {PRODUCTS, PRODUCT_CATALOG}) {
+            cacheManager.registerCustomCache(name, cache(catalogMaximumSize, catalogExpireAfterWrite).build());
+        }
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    // Statistics feed the cache.gets/puts/evictions/size meters on /actuator/metrics
+    private static Caffeine<Object, Object> cache(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats();
+    }
+}
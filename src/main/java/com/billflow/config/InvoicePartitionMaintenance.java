@@ -0,0 +1,41 @@
+package com.billflow.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Keeps monthly invoice partitions created ahead of time on databases that applied db/partitioning, so new
+// invoices never land in the default partition
+@Component
+@ConditionalOnProperty(name = "billflow.invoices.partitioning.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class InvoicePartitionMaintenance {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${billflow.invoices.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${billflow.invoices.partitioning.cron:0 0 3 * * *}")
+    public void createUpcomingPartitions() {
+        try {
+            Integer created = jdbcTemplate.queryForObject(
+                "SELECT create_invoice_partitions(CAST(now() AS date), ?)", Integer.class, monthsAhead + 1);
+            if (created != null && created > 0) {
+                log.info("Created {} monthly invoice partitions", created);
+            }
+        } catch (DataAccessException e) {
+            // Invoices still go to the default partition meanwhile; failing here would stop the application starting
+            log.error("Could not create the upcoming monthly invoice partitions", e);
+        }
+    }
+}
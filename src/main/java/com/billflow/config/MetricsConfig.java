@@ -0,0 +1,124 @@
+package com.billflow.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Service timings and per-request query counts, on /actuator/metrics and /actuator/prometheus
+@Configuration
+public class MetricsConfig {
+
+    // Every method of a service annotated @Timed(SERVICE_TIMER), tagged with class, method and exception. Stock and
+    // serial updates show up as InventoryService methods and single queries as Spring Data's
+    // spring.data.repository.invocations, so a slow createInvoice can be broken down
+    public static final String SERVICE_TIMER = "billflow.service";
+
+    // SQL statements, their execution time and entities loaded per HTTP request, tagged with method and uri like
+    // http.server.requests
+    public static final String REQUEST_STATEMENTS = "billflow.request.statements";
+    public static final String REQUEST_DB_TIME = "billflow.request.db.time";
+    public static final String REQUEST_ENTITIES_LOADED = "billflow.request.entities.loaded";
+
+    // Micrometer's own TimedAspect would run inside @Transactional and miss the commit, where Hibernate flushes
+    // the inserts; this advisor runs ahead of retries and transactions so a timing covers the whole call
+    @Bean
+    public static Advisor serviceTimerAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+            new AnnotationMatchingPointcut(Timed.class, true), new ServiceTimerInterceptor(meterRegistry));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer requestQueryStatsCustomizer() {
+        return properties -> {
+            // Called once per SQL string Hibernate prepares, so a JDBC batch counts as one statement
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                RequestQueryStats.statementPrepared(sql);
+                return sql;
+            });
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, RequestQueryStats.DbTimeListener.class.getName());
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new EntityLoadCounter()));
+        };
+    }
+
+    private static final class ServiceTimerInterceptor implements MethodInterceptor {
+
+        // Looked up lazily: advisors are created before the registry can be
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+        private ServiceTimerInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                successTimers.computeIfAbsent(invocation.getMethod(), method -> timer(invocation, "none"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (Throwable e) {
+                timer(invocation, e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+
+        private Timer timer(MethodInvocation invocation, String exception) {
+            Class<?> type = invocation.getThis().getClass();
+            Timed timed = AnnotationUtils.findAnnotation(type, Timed.class);
+            return Timer.builder(timed.value())
+                .tag("class", type.getSimpleName())
+                .tag("method", invocation.getMethod().getName())
+                .tag("exception", exception)
+                .register(meterRegistry.getObject());
+        }
+    }
+
+    private static final class EntityLoadCounter implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> RequestQueryStats.entityLoaded());
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
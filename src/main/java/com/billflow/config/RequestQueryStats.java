@@ -0,0 +1,135 @@
+package com.billflow.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.BaseSessionEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// SQL statements, their JDBC execution time and the entity loads made by Hibernate on the current thread while an
+// HTTP request is served. Counting is a thread-local lookup and a map increment per statement, cheap enough to
+// always be on. The stats of a finished request stay available as a request attribute
+public final class RequestQueryStats {
+
+    private static final String ATTRIBUTE = RequestQueryStats.class.getName();
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+
+    // Keyed by the SQL as Hibernate generated it, which reuses the same strings; fingerprinted only when reported
+    private final Map<String, Integer> statementCounts = new HashMap<>();
+    private int statements;
+    private int entitiesLoaded;
+    private long dbTimeNanos;
+
+    private RequestQueryStats() {
+    }
+
+    static RequestQueryStats start(HttpServletRequest request) {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        request.setAttribute(ATTRIBUTE, stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    // The stats of a request that went through RequestQueryStatsFilter, or null
+    public static RequestQueryStats of(HttpServletRequest request) {
+        return (RequestQueryStats) request.getAttribute(ATTRIBUTE);
+    }
+
+    // Work done outside a request (startup, scheduled jobs) is not counted
+    static void statementPrepared(String sql) {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.statementCounts.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    static void entityLoaded() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.entitiesLoaded++;
+        }
+    }
+
+    private static void statementExecuted(long nanos) {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.dbTimeNanos += nanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public Duration getDbTime() {
+        return Duration.ofNanos(dbTimeNanos);
+    }
+
+    // Statement counts by fingerprint, most frequent first. A fingerprint is the SQL with literals and
+    // parameter lists collapsed, so the statements of an N+1 loop share one
+    public Map<String, Integer> getFingerprints() {
+        Map<String, Integer> fingerprints = new HashMap<>();
+        statementCounts.forEach((sql, count) -> fingerprints.merge(fingerprint(sql), count, Integer::sum));
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        fingerprints.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    // How often the most repeated fingerprint ran
+    public int getMaxRepeats() {
+        return getFingerprints().values().stream().findFirst().orElse(0);
+    }
+
+    static String fingerprint(String sql) {
+        String fingerprint = WHITESPACE.matcher(sql.trim()).replaceAll(" ").toLowerCase();
+        fingerprint = STRING_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+        return PARAMETER_LIST.matcher(fingerprint).replaceAll("(?...)");
+    }
+
+    // Created by Hibernate for each session; times statement execution only, not reading the results
+    public static class DbTimeListener extends BaseSessionEventListener {
+
+        private long started;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            started = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            statementExecuted(System.nanoTime() - started);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            started = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            statementExecuted(System.nanoTime() - started);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.billflow.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Counts the statements, DB time and entity loads of each request, records them per endpoint, and logs a warning
+// with the statement fingerprints when a request goes over its query budget: too many statements, the same
+// statement repeated (the signature of an N+1 loop), or too long spent executing them. Streamed downloads finish
+// on another thread, so only the work done before the response starts streaming is counted for them
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestQueryStatsFilter extends OncePerRequestFilter {
+
+    private static final int LOGGED_FINGERPRINTS = 5;
+    private static final int LOGGED_FINGERPRINT_LENGTH = 300;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${billflow.query-budget.max-statements:50}")
+    private int maxStatements;
+
+    @Value("${billflow.query-budget.max-repeats:10}")
+    private int maxRepeats;
+
+    @Value("${billflow.query-budget.max-db-time:PT0.5S}")
+    private Duration maxDbTime;
+
+    // Route patterns whose statement counts grow with their input by design, e.g. bulk imports
+    @Value("${billflow.query-budget.excluded-uris:}")
+    private List<String> excludedUris;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long started = System.nanoTime();
+        RequestQueryStats stats = RequestQueryStats.start(request);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            summary(MetricsConfig.REQUEST_STATEMENTS, request, uri).record(stats.getStatements());
+            summary(MetricsConfig.REQUEST_ENTITIES_LOADED, request, uri).record(stats.getEntitiesLoaded());
+            Timer.builder(MetricsConfig.REQUEST_DB_TIME)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getDbTime());
+            if (!excludedUris.contains(uri)) {
+                checkBudget(request, response, uri, stats, Duration.ofNanos(System.nanoTime() - started));
+            }
+        }
+    }
+
+    private void checkBudget(HttpServletRequest request, HttpServletResponse response, String uri,
+                             RequestQueryStats stats, Duration duration) {
+        if (stats.getStatements() <= maxStatements && stats.getDbTime().compareTo(maxDbTime) <= 0) {
+            // Repeats can only exceed their budget once there are more statements than that
+            if (stats.getStatements() <= maxRepeats || stats.getMaxRepeats() <= maxRepeats) {
+                return;
+            }
+        }
+        String fingerprints = stats.getFingerprints().entrySet().stream()
+            .limit(LOGGED_FINGERPRINTS)
+            .map(entry -> entry.getValue() + "x " + abbreviate(entry.getKey()))
+            .collect(Collectors.joining(" | ", "[", "]"));
+        log.warn("Query budget exceeded: method={} uri={} status={} statements={} maxRepeats={} dbTimeMs={} " +
+                "entitiesLoaded={} durationMs={} fingerprints={}",
+            request.getMethod(), uri, response.getStatus(), stats.getStatements(), stats.getMaxRepeats(),
+            stats.getDbTime().toMillis(), stats.getEntitiesLoaded(), duration.toMillis(), fingerprints);
+    }
+
+    private DistributionSummary summary(String name, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry);
+    }
+
+    private static String abbreviate(String fingerprint) {
+        return fingerprint.length() <= LOGGED_FINGERPRINT_LENGTH
+            ? fingerprint
+            : fingerprint.substring(0, LOGGED_FINGERPRINT_LENGTH) + "...";
+    }
+}
@@ -0,0 +1,78 @@
+package com.billflow.controller;
+
+import com.billflow.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/invoices")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return stream("invoices", exportFormat,
+            out -> exportService.exportInvoices(exportFormat, startDate, endDate, out));
+    }
+
+    @GetMapping("/invoice-items")
+    public ResponseEntity<StreamingResponseBody> exportInvoiceItems(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return stream("invoice-items", exportFormat,
+            out -> exportService.exportInvoiceItems(exportFormat, startDate, endDate, out));
+    }
+
+    @GetMapping("/battery-serials")
+    public ResponseEntity<StreamingResponseBody> exportBatterySerials(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return stream("battery-serials", exportFormat,
+            out -> exportService.exportBatterySerials(exportFormat, startDate, endDate, out));
+    }
+
+    @GetMapping("/reports/product-performance")
+    public ResponseEntity<StreamingResponseBody> exportProductPerformance(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return stream("product-performance", exportFormat,
+            out -> exportService.exportProductPerformance(exportFormat, startDate, endDate, out));
+    }
+
+    @GetMapping("/reports/inventory-status")
+    public ResponseEntity<StreamingResponseBody> exportInventoryStatus(
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return stream("inventory-status", exportFormat, out -> exportService.exportInventoryStatus(exportFormat, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(String name, ExportService.Format format,
+                                                                StreamingResponseBody body) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(format.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(name + "." + format.getExtension()).build().toString())
+            .body(body);
+    }
+}
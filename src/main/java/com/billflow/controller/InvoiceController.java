@@ -1,14 +1,22 @@
 package com.billflow.controller;
 
+import com.billflow.dto.InvoiceImportReport;
 import com.billflow.dto.InvoiceRequest;
 import com.billflow.dto.InvoiceStats;
+import com.billflow.dto.InvoiceStatsDriftReport;
+import com.billflow.dto.InvoiceSummaryPage;
 import com.billflow.model.Invoice;
+import com.billflow.service.InvoiceImportService;
 import com.billflow.service.InvoiceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,12 +26,25 @@ import java.util.List;
 public class InvoiceController {
     
     private final InvoiceService invoiceService;
+    private final InvoiceImportService invoiceImportService;
     
     @GetMapping
     public ResponseEntity<List<Invoice>> getAllInvoices() {
         return ResponseEntity.ok(invoiceService.getAllInvoices());
     }
     
+    @GetMapping("/summaries")
+    public ResponseEntity<InvoiceSummaryPage> getInvoiceSummaries(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(invoiceService.getInvoiceSummaries(
+            status, clientId, startDate, endDate, cursor, Math.min(Math.max(size, 1), 100)));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Invoice> getInvoiceById(@PathVariable Long id) {
         return ResponseEntity.ok(invoiceService.getInvoiceById(id));
@@ -43,6 +64,11 @@ public class InvoiceController {
     public ResponseEntity<InvoiceStats> getInvoiceStats() {
         return ResponseEntity.ok(invoiceService.getInvoiceStats());
     }
+
+    @PostMapping("/stats/reconcile")
+    public ResponseEntity<InvoiceStatsDriftReport> reconcileInvoiceStats() {
+        return ResponseEntity.ok(invoiceService.reconcileInvoiceStats());
+    }
     
     @PostMapping
     public ResponseEntity<Invoice> createInvoice(@RequestBody InvoiceRequest request) {
@@ -50,6 +76,16 @@ public class InvoiceController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdInvoice);
     }
     
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<InvoiceImportReport> importInvoicesNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(invoiceImportService.importNdjson(body));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<InvoiceImportReport> importInvoicesCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(invoiceImportService.importCsv(body));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Invoice> updateInvoice(
             @PathVariable Long id,
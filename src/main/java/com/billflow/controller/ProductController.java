@@ -23,7 +23,7 @@ public class ProductController {
     
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+        return ResponseEntity.ok(productService.getProductWithSerialNumbers(id));
     }
     
     @GetMapping("/category/{category}")
@@ -3,6 +3,8 @@ package com.billflow.controller;
 import com.billflow.dto.*;
 import com.billflow.service.ReportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,10 +28,13 @@ public class ReportController {
     }
 
     @GetMapping("/product-performance")
-    public ResponseEntity<List<ProductPerformanceDTO>> getProductPerformance(
+    public ResponseEntity<PagedModel<ProductPerformanceDTO>> getProductPerformance(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        return ResponseEntity.ok(reportService.getProductPerformance(startDate, endDate));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(new PagedModel<>(
+            reportService.getProductPerformance(startDate, endDate, pageRequest(page, size))));
     }
 
     @GetMapping("/financial-summary")
@@ -45,7 +50,14 @@ public class ReportController {
     }
 
     @GetMapping("/serial/{serialNumber}")
-    public ResponseEntity<List<BatterySerialReportDTO>> getBatterySerialReport(@PathVariable String serialNumber) {
-        return ResponseEntity.ok(reportService.getBatterySerialReport(serialNumber));
+    public ResponseEntity<List<BatterySerialReportDTO>> getBatterySerialReport(
+            @PathVariable String serialNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(reportService.getBatterySerialReport(serialNumber, cursor, Math.min(Math.max(limit, 1), 500)));
+    }
+
+    private static PageRequest pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500));
     }
 }
\ No newline at end of file
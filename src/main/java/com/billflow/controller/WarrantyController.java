@@ -3,6 +3,8 @@ package com.billflow.controller;
 import com.billflow.model.BatterySerial;
 import com.billflow.service.WarrantyService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,13 +24,26 @@ public class WarrantyController {
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<BatterySerial>> getActiveWarranties() {
-        return ResponseEntity.ok(warrantyService.getActiveWarranties());
+    public ResponseEntity<PagedModel<BatterySerial>> getActiveWarranties(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(new PagedModel<>(warrantyService.getActiveWarranties(pageRequest(page, size))));
     }
 
     @GetMapping("/expired")
-    public ResponseEntity<List<BatterySerial>> getExpiredWarranties() {
-        return ResponseEntity.ok(warrantyService.getExpiredWarranties());
+    public ResponseEntity<PagedModel<BatterySerial>> getExpiredWarranties(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(new PagedModel<>(warrantyService.getExpiredWarranties(pageRequest(page, size))));
+    }
+
+    @GetMapping("/expiring")
+    public ResponseEntity<PagedModel<BatterySerial>> getExpiringWarranties(
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(new PagedModel<>(
+            warrantyService.getExpiringWarranties(Math.max(days, 0), pageRequest(page, size))));
     }
 
     @GetMapping("/serial/{serialNumber}")
@@ -45,4 +60,8 @@ public class WarrantyController {
         BatterySerial updated = warrantyService.updateWarrantyStatus(serialNumber, status);
         return ResponseEntity.ok(updated);
     }
+
+    private static PageRequest pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.billflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceImportReport {
+    private long received;
+    private long imported;
+    private long failed;
+    private List<RecordError> errors = new ArrayList<>(); // capped; failed always holds the full count
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+        private long line; // line of the NDJSON record, or first CSV row of the invoice
+        private String invoiceNumber;
+        private String error;
+    }
+}
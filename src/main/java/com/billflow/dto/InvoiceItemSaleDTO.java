@@ -0,0 +1,22 @@
+package com.billflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceItemSaleDTO {
+    private Long invoiceItemId;
+    private BigDecimal salePrice;
+    private String invoiceNumber;
+    private LocalDateTime invoiceDate;
+    private Long customerId;
+    private String customerName;
+    private String customerPhone;
+    private String customerEmail;
+}
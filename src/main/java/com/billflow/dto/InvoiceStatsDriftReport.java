@@ -0,0 +1,29 @@
+package com.billflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceStatsDriftReport {
+    private LocalDateTime reconciledAt;
+    private List<StatusDrift> drifts = new ArrayList<>(); // empty when the running totals were accurate
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatusDrift {
+        private String status;
+        private Long storedCount;
+        private Long actualCount;
+        private BigDecimal storedTotal;
+        private BigDecimal actualTotal;
+    }
+}
@@ -0,0 +1,17 @@
+package com.billflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceStatusTotals {
+    private String status;
+    private Long count;
+    private BigDecimal total;
+    private BigDecimal totalBefore; // total of invoices dated before the reference instant
+}
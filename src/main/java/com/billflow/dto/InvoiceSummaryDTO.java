@@ -0,0 +1,21 @@
+package com.billflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceSummaryDTO {
+    private Long id;
+    private String invoiceNumber;
+    private Long clientId;
+    private String clientName;
+    private LocalDateTime date;
+    private BigDecimal total;
+    private String status;
+}
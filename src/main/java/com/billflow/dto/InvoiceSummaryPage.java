@@ -0,0 +1,15 @@
+package com.billflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceSummaryPage {
+    private List<InvoiceSummaryDTO> content;
+    private String nextCursor; // pass back as "cursor" to fetch the next page; null on the last page
+}
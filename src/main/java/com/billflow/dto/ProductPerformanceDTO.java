@@ -14,6 +14,7 @@ public class ProductPerformanceDTO {
     private String productName;
     private String category;
     private Integer quantitySold;
+    private Integer periodQuantitySold; // sold within the requested date range
     private BigDecimal revenue;
     private Integer remainingStock;
 }
\ No newline at end of file
@@ -11,15 +11,24 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "battery_serials")
+@Table(name = "battery_serials", indexes = {
+    @Index(name = "idx_battery_serials_warranty_end", columnList = "warranty_end_date"),
+    @Index(name = "idx_battery_serials_status_end", columnList = "warranty_status, warranty_end_date"),
+    @Index(name = "idx_battery_serials_invoice_item", columnList = "invoice_item_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class BatterySerial {
 
+    // A warranty is honoured from a day before it starts until a day after it ends
+    public static final int WARRANTY_GRACE_DAYS = 1;
+
+    // Pooled sequence instead of IDENTITY so serial inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "battery_serials_seq")
+    @SequenceGenerator(name = "battery_serials_seq", sequenceName = "battery_serials_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Serial number is required")
@@ -48,12 +57,26 @@ public class BatterySerial {
     @Column(nullable = false)
     private String warrantyStatus = "active"; // active, expired, voided
 
+    // Warranty record for a battery sold on an invoice line; the warranty starts on the purchase date
+    public static BatterySerial sold(String serialNumber, Product product, InvoiceItem invoiceItem, LocalDateTime purchaseDate) {
+        BatterySerial batterySerial = new BatterySerial();
+        batterySerial.setSerialNumber(serialNumber);
+        batterySerial.setProduct(product);
+        batterySerial.setInvoiceItem(invoiceItem);
+        batterySerial.setPurchaseDate(purchaseDate);
+        batterySerial.setWarrantyStartDate(purchaseDate);
+        // Use product's warranty duration
+        batterySerial.setWarrantyEndDate(purchaseDate.plusMonths(product.getWarrantyDurationMonths()));
+        batterySerial.setWarrantyStatus("active");
+        return batterySerial;
+    }
+
     // Helper method to check if warranty is active
     public boolean isWarrantyActive() {
         LocalDateTime now = LocalDateTime.now();
         return "active".equals(warrantyStatus) &&
-               now.isAfter(warrantyStartDate.minusDays(1)) &&
-               now.isBefore(warrantyEndDate.plusDays(1));
+               now.isAfter(warrantyStartDate.minusDays(WARRANTY_GRACE_DAYS)) &&
+               now.isBefore(warrantyEndDate.plusDays(WARRANTY_GRACE_DAYS));
     }
 
     // Helper method to check if warranty has started
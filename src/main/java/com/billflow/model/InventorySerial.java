@@ -0,0 +1,49 @@
+package com.billflow.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "inventory_serials", indexes = {
+    @Index(name = "idx_inventory_serials_product_status", columnList = "product_id, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class InventorySerial {
+
+    public static final String IN_STOCK = "in_stock";
+    public static final String SOLD = "sold";
+    public static final String RETURNED = "returned";
+
+    // Pooled sequence so that stocking a product with many serials is written as JDBC batches
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_serials_seq")
+    @SequenceGenerator(name = "inventory_serials_seq", sequenceName = "inventory_serials_seq", allocationSize = 50)
+    private Long id;
+
+    @NotBlank(message = "Serial number is required")
+    @Column(nullable = false, unique = true)
+    private String serialNumber;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @NotBlank(message = "Status is required")
+    @Column(nullable = false, length = 20)
+    private String status = IN_STOCK; // in_stock, sold, returned
+
+    public InventorySerial(Product product, String serialNumber, String status) {
+        this.product = product;
+        this.serialNumber = serialNumber;
+        this.status = status;
+    }
+}
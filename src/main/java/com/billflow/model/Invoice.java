@@ -14,15 +14,33 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+    @Index(name = "idx_invoices_date", columnList = "date"),
+    @Index(name = "idx_invoices_status_date", columnList = "status, date"),
+    @Index(name = "idx_invoices_client_date", columnList = "client_id, date")
+})
+@NamedEntityGraph(name = Invoice.DETAIL_GRAPH,
+    attributeNodes = {
+        @NamedAttributeNode("client"),
+        @NamedAttributeNode(value = "items", subgraph = "items")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+        @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("supplier"))
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Invoice {
+
+    // Everything an invoice response serializes: client and items with their product and supplier
+    public static final String DETAIL_GRAPH = "Invoice.detail";
     
+    // Pooled sequence instead of IDENTITY so bulk imports can insert invoices as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoices_seq")
+    @SequenceGenerator(name = "invoices_seq", sequenceName = "invoices_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Invoice number is required")
@@ -30,7 +48,7 @@ public class Invoice {
     private String invoiceNumber;
     
     @NotNull(message = "Client is required")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     private Client client;
     
@@ -42,7 +60,7 @@ public class Invoice {
 //    @Column(nullable = false)
     private LocalDateTime dueDate;
     
-    @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<InvoiceItem> items = new ArrayList<>();
     
     @Column(nullable = false, precision = 5, scale = 2)
@@ -74,4 +92,16 @@ public class Invoice {
         items.remove(item);
         item.setInvoice(null);
     }
+
+    // Subtotal from the lines; tax and discount are percentages of the subtotal
+    public void recalculateTotals() {
+        BigDecimal lines = BigDecimal.ZERO;
+        for (InvoiceItem item : items) {
+            lines = lines.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        subtotal = lines;
+        BigDecimal taxAmount = subtotal.multiply(tax).divide(BigDecimal.valueOf(100));
+        BigDecimal discountAmount = subtotal.multiply(discount).divide(BigDecimal.valueOf(100));
+        total = subtotal.add(taxAmount).subtract(discountAmount);
+    }
 }
@@ -14,15 +14,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoice_items")
+@Table(name = "invoice_items", indexes = {
+    @Index(name = "idx_invoice_items_product", columnList = "product_id"),
+    @Index(name = "idx_invoice_items_invoice", columnList = "invoice_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class InvoiceItem {
     
+    // Pooled sequence instead of IDENTITY so invoice lines can be inserted as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_items_seq")
+    @SequenceGenerator(name = "invoice_items_seq", sequenceName = "invoice_items_seq", allocationSize = 50)
     private Long id;
     
     @JsonIgnore
@@ -31,7 +36,7 @@ public class InvoiceItem {
     private Invoice invoice;
     
     @NotNull(message = "Product is required")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
     
@@ -46,7 +51,8 @@ public class InvoiceItem {
     private BigDecimal price;
 
     @ElementCollection
-    @CollectionTable(name = "invoice_item_serials", joinColumns = @JoinColumn(name = "invoice_item_id"))
+    @CollectionTable(name = "invoice_item_serials", joinColumns = @JoinColumn(name = "invoice_item_id"),
+                     indexes = @Index(name = "idx_invoice_item_serials_item", columnList = "invoice_item_id"))
     @Column(name = "serial_number")
     @OrderColumn(name = "serial_order")
     private List<String> serialNumbers = new ArrayList<>();
@@ -0,0 +1,27 @@
+package com.billflow.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Running invoice count and total per status, kept in step with invoice writes
+@Entity
+@Table(name = "invoice_status_totals")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceStatusTotal {
+
+    @Id
+    @Column(length = 50)
+    private String status;
+
+    @Column(nullable = false)
+    private Long invoiceCount = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+}
@@ -1,5 +1,6 @@
 package com.billflow.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -8,14 +9,20 @@ import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.Transient;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
+// Second-level cached; a stock update evicts only the product it changed (see InventoryService)
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,14 +49,12 @@ public class Product {
     @Column(nullable = false)
     private String category;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "supplier_id", nullable = true)
     private Supplier supplier;
 
-    @ElementCollection
-    @CollectionTable(name = "product_serials", joinColumns = @JoinColumn(name = "product_id"))
-    @Column(name = "serial_number")
-    @OrderColumn(name = "serial_order")
+    // In-stock serials, stored as InventorySerial rows and filled in by ProductService for API responses
+    @jakarta.persistence.Transient
     private List<String> serialNumbers = new ArrayList<>();
 
     @Column(nullable = false)
@@ -64,4 +69,17 @@ public class Product {
 
     @Transient
     private Integer sold;
+
+    // Materialized lifetime sold quantity, only ever changed through ProductRepository bulk updates
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Integer soldCount = 0;
+
+    // Optimistic lock for whole-entity saves; stock bulk updates bump it too so a stale edit cannot overwrite a sale
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
@@ -1,11 +1,17 @@
 package com.billflow.repository;
 
 import com.billflow.model.BatterySerial;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,9 +22,68 @@ public interface BatterySerialRepository extends JpaRepository<BatterySerial, Lo
 
     List<BatterySerial> findByProductId(Long productId);
 
+    // Warranty windows are bounded by instants computed once per request, so each is a range scan on
+    // (warranty_status, warranty_end_date) instead of a per-row check in Java
+    @EntityGraph(attributePaths = {"product", "product.supplier", "invoiceItem", "invoiceItem.product"})
+    @Query(value = "SELECT bs FROM BatterySerial bs WHERE bs.warrantyStatus = 'active' " +
+                   "AND bs.warrantyEndDate > :endAfter AND bs.warrantyStartDate < :startBefore " +
+                   "ORDER BY bs.warrantyEndDate, bs.id",
+           countQuery = "SELECT COUNT(bs) FROM BatterySerial bs WHERE bs.warrantyStatus = 'active' " +
+                        "AND bs.warrantyEndDate > :endAfter AND bs.warrantyStartDate < :startBefore")
+    Page<BatterySerial> findActiveWarranties(@Param("startBefore") LocalDateTime startBefore,
+                                             @Param("endAfter") LocalDateTime endAfter,
+                                             Pageable pageable);
+
+    // Lapsed warranties, whether or not the expiry sweep has marked them yet, most recently expired first
+    @EntityGraph(attributePaths = {"product", "product.supplier", "invoiceItem", "invoiceItem.product"})
+    @Query(value = "SELECT bs FROM BatterySerial bs WHERE bs.warrantyStatus IN ('active', 'expired') " +
+                   "AND bs.warrantyEndDate <= :endedBy ORDER BY bs.warrantyEndDate DESC, bs.id DESC",
+           countQuery = "SELECT COUNT(bs) FROM BatterySerial bs WHERE bs.warrantyStatus IN ('active', 'expired') " +
+                        "AND bs.warrantyEndDate <= :endedBy")
+    Page<BatterySerial> findExpiredWarranties(@Param("endedBy") LocalDateTime endedBy, Pageable pageable);
+
+    // Active warranties ending in (endAfter, endBy], soonest first
+    @EntityGraph(attributePaths = {"product", "product.supplier", "invoiceItem", "invoiceItem.product"})
+    @Query(value = "SELECT bs FROM BatterySerial bs WHERE bs.warrantyStatus = 'active' " +
+                   "AND bs.warrantyEndDate > :endAfter AND bs.warrantyEndDate <= :endBy " +
+                   "ORDER BY bs.warrantyEndDate, bs.id",
+           countQuery = "SELECT COUNT(bs) FROM BatterySerial bs WHERE bs.warrantyStatus = 'active' " +
+                        "AND bs.warrantyEndDate > :endAfter AND bs.warrantyEndDate <= :endBy")
+    Page<BatterySerial> findWarrantiesEndingBetween(@Param("endAfter") LocalDateTime endAfter,
+                                                    @Param("endBy") LocalDateTime endBy,
+                                                    Pageable pageable);
+
     @Query("SELECT bs FROM BatterySerial bs WHERE bs.invoiceItem.invoice.id = :invoiceId")
     List<BatterySerial> findByInvoiceId(@Param("invoiceId") Long invoiceId);
 
     @Query("SELECT bs FROM BatterySerial bs WHERE bs.serialNumber IN :serialNumbers")
     List<BatterySerial> findBySerialNumbers(@Param("serialNumbers") List<String> serialNumbers);
-}
\ No newline at end of file
+
+    @Query("SELECT bs.serialNumber FROM BatterySerial bs WHERE bs.serialNumber IN :serialNumbers")
+    List<String> findExistingSerialNumbers(@Param("serialNumbers") Collection<String> serialNumbers);
+
+    @Modifying
+    @Query("DELETE FROM BatterySerial bs WHERE bs.serialNumber IN :serialNumbers")
+    int deleteBySerialNumbers(@Param("serialNumbers") List<String> serialNumbers);
+
+    @Modifying
+    @Query("DELETE FROM BatterySerial bs WHERE bs.invoiceItem.id = :invoiceItemId")
+    int deleteByInvoiceItemId(@Param("invoiceItemId") Long invoiceItemId);
+
+    // A sweep-expired warranty becomes active again; the next sweep re-expires it if the new end date has passed too
+    @Modifying
+    @Query("UPDATE BatterySerial bs SET bs.purchaseDate = :purchaseDate, bs.warrantyStartDate = :purchaseDate, " +
+           "bs.warrantyEndDate = :warrantyEndDate, " +
+           "bs.warrantyStatus = CASE WHEN bs.warrantyStatus = 'expired' THEN 'active' ELSE bs.warrantyStatus END " +
+           "WHERE bs.invoiceItem.id = :invoiceItemId")
+    int updateWarrantyDates(@Param("invoiceItemId") Long invoiceItemId,
+                            @Param("purchaseDate") LocalDateTime purchaseDate,
+                            @Param("warrantyEndDate") LocalDateTime warrantyEndDate);
+
+    // Expires at most chunkSize lapsed warranties, oldest first, as one statement on (warranty_status, warranty_end_date)
+    @Modifying
+    @Query("UPDATE BatterySerial bs SET bs.warrantyStatus = 'expired' WHERE bs.id IN (" +
+           "SELECT b.id FROM BatterySerial b WHERE b.warrantyStatus = 'active' AND b.warrantyEndDate <= :endedBy " +
+           "ORDER BY b.warrantyEndDate LIMIT :chunkSize)")
+    int expireWarranties(@Param("endedBy") LocalDateTime endedBy, @Param("chunkSize") int chunkSize);
+}
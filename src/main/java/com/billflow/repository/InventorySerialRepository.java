@@ -0,0 +1,48 @@
+package com.billflow.repository;
+
+import com.billflow.model.InventorySerial;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventorySerialRepository extends JpaRepository<InventorySerial, Long> {
+
+    // serialNumber, productId and status without loading entities, so results never go stale after bulk updates
+    @Query("SELECT s.serialNumber, s.product.id, s.status FROM InventorySerial s WHERE s.serialNumber IN :serialNumbers")
+    List<Object[]> findStates(@Param("serialNumbers") Collection<String> serialNumbers);
+
+    long countByProductIdAndStatus(Long productId, String status);
+
+    @Query("SELECT s.serialNumber FROM InventorySerial s WHERE s.product.id = :productId AND s.status = 'in_stock' ORDER BY s.id")
+    List<String> findInStockSerialNumbers(@Param("productId") Long productId);
+
+    @Query("SELECT s.product.id, s.serialNumber FROM InventorySerial s " +
+           "WHERE s.status = 'in_stock' AND s.product.id IN :productIds ORDER BY s.id")
+    List<Object[]> findInStockSerialNumbersByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT s.product.id, s.serialNumber FROM InventorySerial s WHERE s.status = 'in_stock'")
+    List<Object[]> findAllInStockSerialNumbers();
+
+    @Modifying
+    @Query("UPDATE InventorySerial s SET s.status = :status " +
+           "WHERE s.product.id = :productId AND s.serialNumber IN :serialNumbers AND s.status IN :fromStatuses")
+    int updateStatus(@Param("productId") Long productId,
+                     @Param("serialNumbers") Collection<String> serialNumbers,
+                     @Param("fromStatuses") Collection<String> fromStatuses,
+                     @Param("status") String status);
+
+    @Modifying
+    @Query("DELETE FROM InventorySerial s " +
+           "WHERE s.product.id = :productId AND s.serialNumber IN :serialNumbers AND s.status = 'in_stock'")
+    int deleteInStock(@Param("productId") Long productId, @Param("serialNumbers") Collection<String> serialNumbers);
+
+    @Modifying
+    @Query("DELETE FROM InventorySerial s WHERE s.product.id = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
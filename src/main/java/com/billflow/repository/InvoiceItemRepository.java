@@ -1,12 +1,17 @@
 package com.billflow.repository;
 
+import com.billflow.dto.InvoiceItemSaleDTO;
 import com.billflow.model.InvoiceItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long> {
@@ -14,4 +19,32 @@ public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long>
 
     @Query("SELECT SUM(ii.quantity) FROM InvoiceItem ii WHERE ii.product.id = :productId")
     Integer getTotalSoldQuantity(@Param("productId") Long productId);
-}
\ No newline at end of file
+
+    @Query("SELECT ii.id, ii.product.id, s FROM InvoiceItem ii JOIN ii.serialNumbers s")
+    List<Object[]> findAllSerialNumbers();
+
+    @Query("SELECT ii.id, ii.product.id, s FROM InvoiceItem ii JOIN ii.serialNumbers s WHERE ii.product.id IN :productIds")
+    List<Object[]> findSerialNumbersByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT new com.billflow.dto.InvoiceItemSaleDTO(ii.id, ii.price, i.invoiceNumber, i.date, " +
+           "c.id, c.name, c.phone, c.email) " +
+           "FROM InvoiceItem ii JOIN ii.invoice i JOIN i.client c WHERE ii.id IN :itemIds")
+    List<InvoiceItemSaleDTO> findSaleDetails(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("SELECT ii.product.id, SUM(ii.quantity) FROM InvoiceItem ii GROUP BY ii.product.id")
+    List<Object[]> sumQuantityGroupedByProduct();
+
+    // Sold quantity keyed by product id in one round-trip; products that never sold are absent
+    default Map<Long, Integer> getTotalSoldQuantities() {
+        Map<Long, Integer> soldByProduct = new HashMap<>();
+        for (Object[] row : sumQuantityGroupedByProduct()) {
+            soldByProduct.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return soldByProduct;
+    }
+
+    @Query("SELECT COALESCE(SUM(ii.quantity), 0) FROM InvoiceItem ii " +
+           "WHERE ii.invoice.date >= :startDate AND ii.invoice.date <= :endDate")
+    Long getTotalSoldQuantityBetween(@Param("startDate") LocalDateTime startDate,
+                                     @Param("endDate") LocalDateTime endDate);
+}
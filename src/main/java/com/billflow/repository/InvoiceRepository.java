@@ -1,20 +1,74 @@
 package com.billflow.repository;
 
+import com.billflow.dto.InvoiceStatusTotals;
+import com.billflow.dto.InvoiceSummaryDTO;
 import com.billflow.model.Invoice;
+import com.billflow.model.InvoiceStatusTotal;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
+
+    @EntityGraph(Invoice.DETAIL_GRAPH)
     List<Invoice> findByStatus(String status);
+
+    @EntityGraph(Invoice.DETAIL_GRAPH)
     List<Invoice> findByClientId(Long clientId);
+
     boolean existsByInvoiceNumber(String invoiceNumber);
+
+    @Query("SELECT i.invoiceNumber FROM Invoice i WHERE i.invoiceNumber IN :invoiceNumbers")
+    List<String> findExistingInvoiceNumbers(@Param("invoiceNumbers") Collection<String> invoiceNumbers);
     
+    @EntityGraph(Invoice.DETAIL_GRAPH)
     @Query("SELECT i FROM Invoice i ORDER BY i.date DESC")
     List<Invoice> findAllOrderByDateDesc();
-}
\ No newline at end of file
+
+    // Single invoice with client and line items (and their products) loaded in one query
+    @EntityGraph(Invoice.DETAIL_GRAPH)
+    @Query("SELECT i FROM Invoice i WHERE i.id = :id")
+    Optional<Invoice> findDetailedById(@Param("id") Long id);
+
+    // Keyset page of invoice summaries, newest first; (afterDate, afterId) is the last row of the previous page.
+    // Statuses are compared case-insensitively, as in the reports
+    @Query("SELECT new com.billflow.dto.InvoiceSummaryDTO(i.id, i.invoiceNumber, c.id, c.name, i.date, i.total, i.status) " +
+           "FROM Invoice i JOIN i.client c " +
+           "WHERE (:status IS NULL OR LOWER(i.status) = LOWER(:status)) " +
+           "AND (:clientId IS NULL OR c.id = :clientId) " +
+           "AND (:fromDate IS NULL OR i.date >= :fromDate) " +
+           "AND (:toDate IS NULL OR i.date <= :toDate) " +
+           "AND (:afterDate IS NULL OR i.date < :afterDate OR (i.date = :afterDate AND i.id < :afterId)) " +
+           "ORDER BY i.date DESC, i.id DESC")
+    List<InvoiceSummaryDTO> findSummaries(@Param("status") String status,
+                                          @Param("clientId") Long clientId,
+                                          @Param("fromDate") LocalDateTime fromDate,
+                                          @Param("toDate") LocalDateTime toDate,
+                                          @Param("afterDate") LocalDateTime afterDate,
+                                          @Param("afterId") Long afterId,
+                                          Limit limit);
+
+    // Per-status totals for invoices dated within [startDate, endDate]; statuses are compared case-insensitively
+    @Query("SELECT new com.billflow.dto.InvoiceStatusTotals(LOWER(i.status), COUNT(i), SUM(i.total), " +
+           "SUM(CASE WHEN i.date < :before THEN i.total ELSE 0 END)) " +
+           "FROM Invoice i WHERE i.date >= :startDate AND i.date <= :endDate " +
+           "GROUP BY LOWER(i.status)")
+    List<InvoiceStatusTotals> sumTotalsByStatus(@Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate,
+                                                @Param("before") LocalDateTime before);
+
+    // Invoice count and total per exact status across all invoices, used to rebuild the running totals
+    @Query("SELECT new com.billflow.model.InvoiceStatusTotal(i.status, COUNT(i), SUM(i.total)) " +
+           "FROM Invoice i GROUP BY i.status")
+    List<InvoiceStatusTotal> sumTotalsGroupedByStatus();
+}
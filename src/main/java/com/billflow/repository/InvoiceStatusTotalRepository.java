@@ -0,0 +1,40 @@
+package com.billflow.repository;
+
+import com.billflow.model.InvoiceStatusTotal;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface InvoiceStatusTotalRepository extends JpaRepository<InvoiceStatusTotal, String> {
+
+    // In-place increment so concurrent invoice writes never overwrite each other's deltas
+    @Modifying
+    @Query("UPDATE InvoiceStatusTotal t SET t.invoiceCount = t.invoiceCount + :countDelta, " +
+           "t.total = t.total + :totalDelta WHERE t.status = :status")
+    int adjust(@Param("status") String status,
+               @Param("countDelta") long countDelta,
+               @Param("totalDelta") BigDecimal totalDelta);
+
+    // Zero row for a status seen for the first time; a concurrent first insert fails on the primary key.
+    // Declaring the table keeps Hibernate from clearing every second-level cache region
+    @Modifying
+    @Query(value = "INSERT INTO invoice_status_totals (status, invoice_count, total) VALUES (:status, 0, 0)",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "invoice_status_totals"))
+    int insertEmpty(@Param("status") String status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM InvoiceStatusTotal t")
+    List<InvoiceStatusTotal> findAllForUpdate();
+}
@@ -0,0 +1,51 @@
+package com.billflow.repository;
+
+import com.billflow.model.JobLock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Takes over the lease only when it has run out, so at most one caller sees 1
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :lockedUntil, l.lockedBy = :owner " +
+           "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int acquire(@Param("name") String name,
+                @Param("now") LocalDateTime now,
+                @Param("lockedUntil") LocalDateTime lockedUntil,
+                @Param("owner") String owner);
+
+    // Plain insert for the first use of a lock; a concurrent first use fails on the primary key. Declaring the
+    // table keeps Hibernate from clearing every second-level cache region after this native statement
+    @Modifying
+    @Query(value = "INSERT INTO job_locks (name, locked_until, locked_by) VALUES (:name, :lockedUntil, :owner)",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_locks"))
+    int insert(@Param("name") String name,
+               @Param("lockedUntil") LocalDateTime lockedUntil,
+               @Param("owner") String owner);
+
+    // Extends a lease the owner still holds; 0 once it has run out or been taken over
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :lockedUntil " +
+           "WHERE l.name = :name AND l.lockedBy = :owner AND l.lockedUntil > :now")
+    int renew(@Param("name") String name,
+              @Param("now") LocalDateTime now,
+              @Param("lockedUntil") LocalDateTime lockedUntil,
+              @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now);
+}
@@ -1,21 +1,90 @@
 package com.billflow.repository;
 
+import com.billflow.dto.ProductPerformanceDTO;
 import com.billflow.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Catalog and report listings show the supplier name, so fetch it in the same query. Query cache: results
+    // are reused until products or suppliers are next written
+    @Override
+    @EntityGraph(attributePaths = "supplier")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Product> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "supplier")
+    List<Product> findAllById(Iterable<Long> ids);
+
+    @Override
+    @EntityGraph(attributePaths = "supplier")
+    Optional<Product> findById(Long id);
+
+    @EntityGraph(attributePaths = "supplier")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Product> findByCategory(String category);
 
-    @Query("SELECT p FROM Product p WHERE :serialNumber IN elements(p.serialNumbers)")
+    @Query("SELECT s.product FROM InventorySerial s WHERE s.serialNumber = :serialNumber AND s.status = 'in_stock'")
     Optional<Product> findBySerialNumber(@Param("serialNumber") String serialNumber);
 
+    @EntityGraph(attributePaths = "supplier")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Product> findByIsBattery(Boolean isBattery);
     List<Product> findBySupplierId(Long supplierId);
+
+    // Takes quantity off the shelf and counts it as sold, only if that much is left, so concurrent
+    // sales can never oversell. Native, and synchronized only with product_stock, a space no cached entity or query
+    // reads, so a sale does not drop the whole Product region and query cache; InventoryService evicts the product
+    @Modifying
+    @Query(value = "UPDATE products SET stock = stock - :quantity, sold_count = sold_count + :quantity, " +
+                   "version = version + 1 WHERE id = :productId AND stock >= :quantity",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    int reserveStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query(value = "UPDATE products SET stock = stock + :stockDelta, sold_count = sold_count + :soldDelta, " +
+                   "version = version + 1 WHERE id = :productId",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    int adjustStock(@Param("productId") Long productId,
+                    @Param("stockDelta") int stockDelta,
+                    @Param("soldDelta") int soldDelta);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.soldCount = " +
+           "COALESCE((SELECT SUM(ii.quantity) FROM InvoiceItem ii WHERE ii.product = p), 0)")
+    int rebuildSoldCounts();
+
+    // Lifetime and in-range sales per product in a single grouped pass, best sellers first
+    @Query(value = "SELECT new com.billflow.dto.ProductPerformanceDTO(p.id, p.name, p.category, " +
+                   "CAST(COALESCE(SUM(ii.quantity), 0) AS Integer), " +
+                   "CAST(COALESCE(SUM(CASE WHEN i.id IS NOT NULL THEN ii.quantity ELSE 0 END), 0) AS Integer), " +
+                   "COALESCE(SUM(CASE WHEN i.id IS NOT NULL THEN ii.price * ii.quantity ELSE 0 END), 0), " +
+                   "p.stock) " +
+                   "FROM Product p " +
+                   "LEFT JOIN InvoiceItem ii ON ii.product = p " +
+                   "LEFT JOIN ii.invoice i ON i.date >= :startDate AND i.date <= :endDate " +
+                   "GROUP BY p.id, p.name, p.category, p.stock " +
+                   "ORDER BY COALESCE(SUM(CASE WHEN i.id IS NOT NULL THEN ii.price * ii.quantity ELSE 0 END), 0) DESC, p.id",
+           countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductPerformanceDTO> getProductPerformance(@Param("startDate") LocalDateTime startDate,
+                                                      @Param("endDate") LocalDateTime endDate,
+                                                      Pageable pageable);
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.billflow.service;
 
+import com.billflow.config.CacheConfig;
 import com.billflow.model.Client;
 import com.billflow.repository.ClientRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,15 +18,18 @@ public class ClientService {
     
     private final ClientRepository clientRepository;
     
+    @Cacheable(CacheConfig.CLIENT_LIST)
     public List<Client> getAllClients() {
         return clientRepository.findAll();
     }
     
+    // Cached instances are shared between requests and must not be modified; writes load their own copy
+    @Cacheable(cacheNames = CacheConfig.CLIENTS, key = "#id")
     public Client getClientById(Long id) {
-        return clientRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Client not found with id: " + id));
+        return findClient(id);
     }
     
+    @CacheEvict(cacheNames = CacheConfig.CLIENT_LIST, allEntries = true)
     @Transactional
     public Client createClient(Client client) {
 //        if (clientRepository.existsByEmail(client.getEmail())) {
@@ -31,9 +38,13 @@ public class ClientService {
         return clientRepository.save(client);
     }
     
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.CLIENTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.CLIENT_LIST, allEntries = true)
+    })
     @Transactional
     public Client updateClient(Long id, Client clientDetails) {
-        Client client = getClientById(id);
+        Client client = findClient(id);
         
         // Check if email is being changed and if it already exists
         if (!client.getEmail().equals(clientDetails.getEmail()) 
@@ -49,9 +60,18 @@ public class ClientService {
         return clientRepository.save(client);
     }
     
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.CLIENTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.CLIENT_LIST, allEntries = true)
+    })
     @Transactional
     public void deleteClient(Long id) {
-        Client client = getClientById(id);
+        Client client = findClient(id);
         clientRepository.delete(client);
     }
+
+    private Client findClient(Long id) {
+        return clientRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Client not found with id: " + id));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.billflow.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Full exports written straight from a forward-only JDBC cursor to the response, one row at a time, so heap use
+// does not grow with the number of rows. Runs in a read-only transaction, which PostgreSQL needs before it
+// honours the fetch size instead of buffering the whole result
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    @Getter
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String format) {
+            for (Format value : values()) {
+                if (value.name().equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new RuntimeException("Unsupported export format: " + format);
+        }
+    }
+
+    // Invoices dated within [startDate, endDate]
+    private static final ExportQuery INVOICES = new ExportQuery(
+        "SELECT i.id, i.invoice_number, i.date, i.due_date, c.id, c.name, c.phone, i.status, " +
+        "i.subtotal, i.tax, i.discount, i.total, i.notes " +
+        "FROM invoices i JOIN clients c ON c.id = i.client_id " +
+        "WHERE i.date >= ? AND i.date <= ? ORDER BY i.date, i.id",
+        List.of("id", "invoiceNumber", "date", "dueDate", "clientId", "clientName", "clientPhone", "status",
+            "subtotal", "tax", "discount", "total", "notes"));
+
+    private static final ExportQuery INVOICE_ITEMS = new ExportQuery(
+        "SELECT ii.id, i.id, i.invoice_number, i.date, p.id, p.name, p.category, ii.quantity, ii.price, " +
+        "ii.price * ii.quantity " +
+        "FROM invoice_items ii JOIN invoices i ON i.id = ii.invoice_id JOIN products p ON p.id = ii.product_id " +
+        "WHERE i.date >= ? AND i.date <= ? ORDER BY i.date, i.id, ii.id",
+        List.of("id", "invoiceId", "invoiceNumber", "invoiceDate", "productId", "productName", "category",
+            "quantity", "price", "lineTotal"));
+
+    // Warranty records of batteries purchased within [startDate, endDate]
+    private static final ExportQuery BATTERY_SERIALS = new ExportQuery(
+        "SELECT bs.serial_number, p.id, p.name, i.invoice_number, c.name, c.phone, bs.purchase_date, " +
+        "bs.warranty_start_date, bs.warranty_end_date, bs.warranty_status " +
+        "FROM battery_serials bs JOIN products p ON p.id = bs.product_id " +
+        "LEFT JOIN invoice_items ii ON ii.id = bs.invoice_item_id " +
+        "LEFT JOIN invoices i ON i.id = ii.invoice_id " +
+        "LEFT JOIN clients c ON c.id = i.client_id " +
+        "WHERE bs.purchase_date >= ? AND bs.purchase_date <= ? ORDER BY bs.purchase_date, bs.id",
+        List.of("serialNumber", "productId", "productName", "invoiceNumber", "customerName", "customerPhone",
+            "purchaseDate", "warrantyStartDate", "warrantyEndDate", "warrantyStatus"));
+
+    // Same figures as ProductRepository.getProductPerformance, for every product at once
+    private static final ExportQuery PRODUCT_PERFORMANCE = new ExportQuery(
+        "SELECT p.id, p.name, p.category, COALESCE(SUM(ii.quantity), 0), " +
+        "COALESCE(SUM(CASE WHEN i.id IS NOT NULL THEN ii.quantity ELSE 0 END), 0), " +
+        "COALESCE(SUM(CASE WHEN i.id IS NOT NULL THEN ii.price * ii.quantity ELSE 0 END), 0), p.stock " +
+        "FROM products p " +
+        "LEFT JOIN invoice_items ii ON ii.product_id = p.id " +
+        "LEFT JOIN invoices i ON i.id = ii.invoice_id AND i.date >= ? AND i.date <= ? " +
+        "GROUP BY p.id, p.name, p.category, p.stock " +
+        "ORDER BY 6 DESC, p.id",
+        List.of("productId", "productName", "category", "quantitySold", "periodQuantitySold", "revenue",
+            "remainingStock"));
+
+    // Same figures and stock levels as ReportService.getInventoryStatus
+    private static final ExportQuery INVENTORY_STATUS = new ExportQuery(
+        "SELECT p.id, p.name, p.category, p.stock, COALESCE(s.sold, 0), p.price, p.price * p.stock, " +
+        "COALESCE(sup.name, 'N/A'), " +
+        "CASE WHEN p.stock = 0 THEN 'Out of Stock' WHEN p.stock <= 5 THEN 'Low Stock' ELSE 'In Stock' END " +
+        "FROM products p " +
+        "LEFT JOIN (SELECT product_id, SUM(quantity) AS sold FROM invoice_items GROUP BY product_id) s " +
+        "ON s.product_id = p.id " +
+        "LEFT JOIN suppliers sup ON sup.id = p.supplier_id " +
+        "ORDER BY p.id",
+        List.of("productId", "productName", "category", "currentStock", "soldQuantity", "price", "totalValue",
+            "supplierName", "status"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${billflow.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public void exportInvoices(Format format, LocalDateTime startDate, LocalDateTime endDate, OutputStream out) {
+        export(INVOICES, format, out, startDate, endDate);
+    }
+
+    public void exportInvoiceItems(Format format, LocalDateTime startDate, LocalDateTime endDate, OutputStream out) {
+        export(INVOICE_ITEMS, format, out, startDate, endDate);
+    }
+
+    public void exportBatterySerials(Format format, LocalDateTime startDate, LocalDateTime endDate, OutputStream out) {
+        export(BATTERY_SERIALS, format, out, startDate, endDate);
+    }
+
+    public void exportProductPerformance(Format format, LocalDateTime startDate, LocalDateTime endDate, OutputStream out) {
+        export(PRODUCT_PERFORMANCE, format, out, startDate, endDate);
+    }
+
+    public void exportInventoryStatus(Format format, OutputStream out) {
+        export(INVENTORY_STATUS, format, out);
+    }
+
+    private void export(ExportQuery query, Format format, OutputStream out, Object... params) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query.sql(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            return statement;
+        }, (ResultSetExtractor<Void>) resultSet -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                if (format == Format.CSV) {
+                    writeCsv(query.columns(), resultSet, writer);
+                } else {
+                    writeNdjson(query.columns(), resultSet, writer);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // Usually the client went away; ends the query and releases the connection
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }));
+    }
+
+    private static void writeCsv(List<String> columns, ResultSet resultSet, Writer writer) throws IOException, SQLException {
+        writer.write(String.join(",", columns));
+        writer.write("\r\n");
+        while (resultSet.next()) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = value(resultSet, i + 1);
+                if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value instanceof LocalDateTime dateTime) {
+                    writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime));
+                } else if (value != null) {
+                    writer.write(csvCell(value.toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    private void writeNdjson(List<String> columns, ResultSet resultSet, Writer writer) throws IOException, SQLException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        while (resultSet.next()) {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                generator.writeObjectField(columns.get(i), value(resultSet, i + 1));
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+        generator.close();
+    }
+
+    private static Object value(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+    }
+
+    private static String csvCell(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record ExportQuery(String sql, List<String> columns) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.billflow.service;
+
+import com.billflow.config.CacheConfig;
+import com.billflow.config.MetricsConfig;
+import com.billflow.model.InventorySerial;
+import com.billflow.model.Product;
+import com.billflow.repository.InventorySerialRepository;
+import com.billflow.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Cache;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Stock movements as narrow, relative UPDATEs: each operation writes only the rows it changes and never
+// rewrites the product, so concurrent invoices cannot overwrite each other's stock or sold figures
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@RequiredArgsConstructor
+public class InventoryService {
+
+    private final ProductRepository productRepository;
+    private final InventorySerialRepository inventorySerialRepository;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+
+    // Sells quantity of a quantity-tracked product; fails instead of overselling
+    @Transactional
+    public void reserve(Product product, int quantity) {
+        if (productRepository.reserveStock(product.getId(), quantity) == 0) {
+            throw new RuntimeException("Insufficient stock for product: " + product.getName());
+        }
+        refreshStock(product);
+    }
+
+    // Gives back quantity that was sold, e.g. when an invoice line is removed or shrinks
+    @Transactional
+    public void release(Product product, int quantity) {
+        adjust(product, quantity, -quantity);
+    }
+
+    // Manual stock correction that does not count as a sale
+    @Transactional
+    public void adjust(Product product, int delta) {
+        adjust(product, delta, 0);
+    }
+
+    // Moves serials from in_stock to sold with one UPDATE
+    @Transactional
+    public void markSold(Product product, Collection<String> serialNumbers) {
+        List<String> serials = distinct(serialNumbers);
+        Map<String, Object[]> states = findStates(serials);
+        for (String serialNumber : serials) {
+            Object[] state = states.get(serialNumber);
+            if (state == null || !product.getId().equals(state[1]) || !InventorySerial.IN_STOCK.equals(state[2])) {
+                throw new RuntimeException("Serial number not available in stock: " + serialNumber);
+            }
+        }
+        int updated = inventorySerialRepository.updateStatus(product.getId(), serials,
+            List.of(InventorySerial.IN_STOCK), InventorySerial.SOLD);
+        if (updated != serials.size()) {
+            // Another invoice won the race; a retry reports exactly which serial is gone
+            throw new ConcurrencyFailureException("Serial numbers were sold by another invoice");
+        }
+        adjust(product, -updated, updated);
+    }
+
+    // Puts sold serials back in stock, recreating rows for serials that predate the inventory table
+    @Transactional
+    public void markReturned(Product product, Collection<String> serialNumbers) {
+        List<String> serials = distinct(serialNumbers);
+        if (serials.isEmpty()) {
+            return;
+        }
+        Map<String, Object[]> states = findStates(serials);
+        int restocked = inventorySerialRepository.updateStatus(product.getId(), serials,
+            List.of(InventorySerial.SOLD, InventorySerial.RETURNED), InventorySerial.IN_STOCK);
+        List<InventorySerial> missing = serials.stream()
+            .filter(serial -> !states.containsKey(serial))
+            .map(serial -> new InventorySerial(product, serial, InventorySerial.IN_STOCK))
+            .toList();
+        inventorySerialRepository.saveAll(missing);
+        adjust(product, restocked + missing.size(), -serials.size());
+    }
+
+    // Shelves new serials for a product; sold or returned serials of the same product go back in stock
+    @Transactional
+    public void stockSerials(Product product, Collection<String> serialNumbers) {
+        List<String> serials = distinct(serialNumbers);
+        if (serials.isEmpty()) {
+            return;
+        }
+        Map<String, Object[]> states = findStates(serials);
+
+        List<InventorySerial> toSave = new ArrayList<>();
+        List<String> toRestock = new ArrayList<>();
+        for (String serialNumber : serials) {
+            Object[] state = states.get(serialNumber);
+            if (state == null) {
+                toSave.add(new InventorySerial(product, serialNumber, InventorySerial.IN_STOCK));
+            } else if (!product.getId().equals(state[1]) || InventorySerial.IN_STOCK.equals(state[2])) {
+                throw new RuntimeException("Serial number already exists: " + serialNumber);
+            } else {
+                // A sold or returned serial of this product is being put back on the shelf
+                toRestock.add(serialNumber);
+            }
+        }
+        if (!toRestock.isEmpty()) {
+            inventorySerialRepository.updateStatus(product.getId(), toRestock,
+                List.of(InventorySerial.SOLD, InventorySerial.RETURNED), InventorySerial.IN_STOCK);
+        }
+        inventorySerialRepository.saveAll(toSave);
+        evictCached(product);
+    }
+
+    // Takes in-stock serials off the shelf without selling them
+    @Transactional
+    public void unstockSerials(Product product, Collection<String> serialNumbers) {
+        List<String> serials = distinct(serialNumbers);
+        if (!serials.isEmpty()) {
+            inventorySerialRepository.deleteInStock(product.getId(), serials);
+            evictCached(product);
+        }
+    }
+
+    private void adjust(Product product, int stockDelta, int soldDelta) {
+        if (stockDelta != 0 || soldDelta != 0) {
+            productRepository.adjustStock(product.getId(), stockDelta, soldDelta);
+            refreshStock(product);
+        }
+    }
+
+    // Reloads stock and version so the caller's entity neither shows nor flushes stale values. The reload skips
+    // the second-level cache, and this product's entry is dropped now and again once the transaction ends, so
+    // other sessions never cache the uncommitted figures and reload the committed ones
+    private void refreshStock(Product product) {
+        entityManager.refresh(product, Map.of(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS));
+        Cache secondLevelCache = entityManager.getEntityManagerFactory().getCache();
+        Long productId = product.getId();
+        secondLevelCache.evict(Product.class, productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    secondLevelCache.evict(Product.class, productId);
+                }
+            });
+        }
+        evictCached(product);
+    }
+
+    // The cached product and catalog listings show stock, sold figures and serials; evicted once this commits
+    private void evictCached(Product product) {
+        cacheManager.getCache(CacheConfig.PRODUCTS).evict(product.getId());
+        cacheManager.getCache(CacheConfig.PRODUCT_CATALOG).clear();
+    }
+
+    private Map<String, Object[]> findStates(Collection<String> serialNumbers) {
+        Map<String, Object[]> states = new HashMap<>();
+        if (!serialNumbers.isEmpty()) {
+            for (Object[] row : inventorySerialRepository.findStates(serialNumbers)) {
+                states.put((String) row[0], row);
+            }
+        }
+        return states;
+    }
+
+    private static List<String> distinct(Collection<String> serialNumbers) {
+        return serialNumbers == null ? new ArrayList<>() : new ArrayList<>(new LinkedHashSet<>(serialNumbers));
+    }
+}
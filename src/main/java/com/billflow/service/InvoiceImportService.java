@@ -0,0 +1,551 @@
+package com.billflow.service;
+
+import com.billflow.dto.InvoiceImportReport;
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.BatterySerial;
+import com.billflow.model.Client;
+import com.billflow.model.InventorySerial;
+import com.billflow.model.Invoice;
+import com.billflow.model.InvoiceItem;
+import com.billflow.model.Product;
+import com.billflow.repository.BatterySerialRepository;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.InventorySerialRepository;
+import com.billflow.repository.InvoiceRepository;
+import com.billflow.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Imports invoices from NDJSON or CSV without holding the file in memory: records are read one at a time,
+// validated a chunk at a time against lookup maps loaded with one query per table, and each chunk is
+// written as JDBC batches in its own transaction
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceImportService {
+
+    private static final List<String> CSV_REQUIRED_COLUMNS = List.of("clientId", "date", "productId", "quantity", "price");
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ClientRepository clientRepository;
+    private final ProductRepository productRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InventorySerialRepository inventorySerialRepository;
+    private final BatterySerialRepository batterySerialRepository;
+    private final InventoryService inventoryService;
+    private final InvoiceStatsService invoiceStatsService;
+    private final InvoiceNumberGenerator invoiceNumberGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${billflow.import.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${billflow.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // One InvoiceRequest per line
+    public InvoiceImportReport importNdjson(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ImportRun run = new ImportRun();
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.add(new ImportRecord(lineNumber, objectMapper.readValue(line, InvoiceRequest.class)));
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    // One invoice line per row with the invoice columns repeated; consecutive rows sharing an invoiceNumber
+    // form one invoice, and a row without one is an invoice of its own that gets a generated number.
+    // serialNumbers are separated by '|'
+    public InvoiceImportReport importCsv(InputStream input) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        ImportRun run = new ImportRun();
+        List<String> header = reader.next();
+        if (header == null) {
+            return run.finish();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+        for (String column : CSV_REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new RuntimeException("CSV header is missing column: " + column);
+            }
+        }
+
+        ImportRecord current = null;
+        String currentError = null;
+        while (true) {
+            long lineNumber = reader.getLineNumber() + 1;
+            List<String> cells;
+            try {
+                cells = reader.next();
+            } catch (IllegalArgumentException e) {
+                cells = null;
+                currentError = flushCsvRecord(run, current, currentError);
+                current = null;
+                run.reject(lineNumber, null, e.getMessage());
+            }
+            if (cells == null) {
+                if (reader.isExhausted()) {
+                    break;
+                }
+                continue;
+            }
+            if (cells.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+
+            String invoiceNumber = cell(cells, columns, "invoiceNumber");
+            if (current == null || invoiceNumber == null || !invoiceNumber.equals(current.request().getInvoiceNumber())) {
+                currentError = flushCsvRecord(run, current, currentError);
+                current = new ImportRecord(lineNumber, new InvoiceRequest());
+                current.request().setInvoiceNumber(invoiceNumber);
+                current.request().setItems(new ArrayList<>());
+                try {
+                    readInvoiceColumns(current.request(), cells, columns);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    currentError = "Invalid value in line " + lineNumber + ": " + e.getMessage();
+                }
+            }
+            if (currentError == null) {
+                try {
+                    current.request().getItems().add(readItemColumns(cells, columns));
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    currentError = "Invalid value in line " + lineNumber + ": " + e.getMessage();
+                }
+            }
+        }
+        flushCsvRecord(run, current, currentError);
+        return run.finish();
+    }
+
+    private static String flushCsvRecord(ImportRun run, ImportRecord record, String error) {
+        if (record != null) {
+            if (error == null) {
+                run.add(record);
+            } else {
+                run.reject(record.line(), record.request().getInvoiceNumber(), error);
+            }
+        }
+        return null;
+    }
+
+    private static void readInvoiceColumns(InvoiceRequest request, List<String> cells, Map<String, Integer> columns) {
+        String clientId = cell(cells, columns, "clientId");
+        request.setClientId(clientId == null ? null : Long.valueOf(clientId));
+        request.setDate(dateTime(cell(cells, columns, "date")));
+        request.setDueDate(dateTime(cell(cells, columns, "dueDate")));
+        request.setTax(decimal(cell(cells, columns, "tax"), BigDecimal.ZERO));
+        request.setDiscount(decimal(cell(cells, columns, "discount"), BigDecimal.ZERO));
+        String status = cell(cells, columns, "status");
+        request.setStatus(status == null ? "pending" : status);
+        request.setNotes(cell(cells, columns, "notes"));
+    }
+
+    private static InvoiceRequest.InvoiceItemRequest readItemColumns(List<String> cells, Map<String, Integer> columns) {
+        InvoiceRequest.InvoiceItemRequest item = new InvoiceRequest.InvoiceItemRequest();
+        String productId = cell(cells, columns, "productId");
+        item.setProductId(productId == null ? null : Long.valueOf(productId));
+        String quantity = cell(cells, columns, "quantity");
+        item.setQuantity(quantity == null ? null : Integer.valueOf(quantity));
+        item.setPrice(decimal(cell(cells, columns, "price"), null));
+        String serials = cell(cells, columns, "serialNumbers");
+        if (serials != null) {
+            List<String> serialNumbers = new ArrayList<>();
+            for (String serial : serials.split("\\|")) {
+                if (!serial.isBlank()) {
+                    serialNumbers.add(serial.trim());
+                }
+            }
+            item.setSerialNumbers(serialNumbers);
+        }
+        return item;
+    }
+
+    private static String cell(List<String> cells, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= cells.size() || cells.get(index).isBlank()) {
+            return null;
+        }
+        return cells.get(index).trim();
+    }
+
+    // Accepts a full timestamp or a plain date, which means the start of that day
+    private static LocalDateTime dateTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+
+    private static BigDecimal decimal(String value, BigDecimal fallback) {
+        return value == null ? fallback : new BigDecimal(value);
+    }
+
+    // Validates and writes one chunk in a single transaction; a failure while writing rolls back the chunk
+    // and fails every record in it that had passed validation
+    private void importChunk(List<ImportRecord> records, InvoiceImportReport report) {
+        List<ImportRecord> accepted = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                writeChunk(records, accepted, report);
+                // Under open-in-view the transaction joins the request's persistence context, which would keep
+                // every imported entity managed, and dirty-checked on each later flush, until the request ends
+                entityManager.flush();
+                entityManager.clear();
+            });
+            report.setImported(report.getImported() + accepted.size());
+        } catch (RuntimeException e) {
+            log.warn("Invoice import chunk of {} records rolled back: {}", records.size(), e.getMessage());
+            for (ImportRecord record : accepted) {
+                reject(report, record.line(), record.request().getInvoiceNumber(), "Chunk rolled back: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeChunk(List<ImportRecord> records, List<ImportRecord> accepted, InvoiceImportReport report) {
+        ChunkLookups lookups = loadLookups(records);
+
+        List<Invoice> invoices = new ArrayList<>();
+        List<BatterySerial> batterySerials = new ArrayList<>();
+        Map<Product, Integer> reservedQuantities = new LinkedHashMap<>();
+        Map<Product, List<String>> soldSerials = new LinkedHashMap<>();
+        for (ImportRecord record : records) {
+            InvoiceRequest request = record.request();
+            String error = validate(request, lookups);
+            if (error != null) {
+                reject(report, record.line(), request.getInvoiceNumber(), error);
+                continue;
+            }
+
+            Invoice invoice = new Invoice();
+            String invoiceNumber = request.getInvoiceNumber();
+            if (invoiceNumber == null || invoiceNumber.isEmpty()) {
+                invoiceNumber = invoiceNumberGenerator.nextInvoiceNumber(request.getDate());
+            }
+            lookups.invoiceNumbers().add(invoiceNumber);
+            invoice.setInvoiceNumber(invoiceNumber);
+            invoice.setClient(lookups.clients().get(request.getClientId()));
+            invoice.setDate(request.getDate());
+            invoice.setDueDate(request.getDueDate());
+            invoice.setTax(request.getTax() == null ? BigDecimal.ZERO : request.getTax());
+            invoice.setDiscount(request.getDiscount() == null ? BigDecimal.ZERO : request.getDiscount());
+            invoice.setStatus(request.getStatus() == null ? "pending" : request.getStatus());
+            invoice.setNotes(request.getNotes());
+
+            for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
+                Product product = lookups.products().get(itemRequest.getProductId());
+                InvoiceItem item = new InvoiceItem();
+                item.setProduct(product);
+                item.setQuantity(itemRequest.getQuantity());
+                item.setPrice(itemRequest.getPrice());
+                if (Boolean.TRUE.equals(product.getIsBattery())) {
+                    item.setSerialNumbers(new ArrayList<>(itemRequest.getSerialNumbers()));
+                    soldSerials.computeIfAbsent(product, p -> new ArrayList<>()).addAll(itemRequest.getSerialNumbers());
+                    lookups.soldSerials().addAll(itemRequest.getSerialNumbers());
+                    for (String serialNumber : itemRequest.getSerialNumbers()) {
+                        batterySerials.add(BatterySerial.sold(serialNumber, product, item, request.getDate()));
+                    }
+                } else {
+                    reservedQuantities.merge(product, itemRequest.getQuantity(), Integer::sum);
+                    lookups.remainingStock().merge(product.getId(), -itemRequest.getQuantity(), Integer::sum);
+                }
+                invoice.addItem(item);
+            }
+            invoice.recalculateTotals();
+            invoices.add(invoice);
+            accepted.add(record);
+        }
+        if (invoices.isEmpty()) {
+            return;
+        }
+
+        // One guarded stock update per product for the whole chunk instead of one per line
+        reservedQuantities.forEach(inventoryService::reserve);
+        soldSerials.forEach(inventoryService::markSold);
+
+        invoiceRepository.saveAll(invoices);
+        batterySerialRepository.saveAll(batterySerials);
+
+        // Status rows in status order, like every other invoice write, so concurrent writers cannot deadlock on them
+        Map<String, Long> countsByStatus = new TreeMap<>(InvoiceStatsService.STATUS_ORDER);
+        Map<String, BigDecimal> totalsByStatus = new HashMap<>();
+        for (Invoice invoice : invoices) {
+            countsByStatus.merge(invoice.getStatus(), 1L, Long::sum);
+            totalsByStatus.merge(invoice.getStatus(), invoice.getTotal(), BigDecimal::add);
+        }
+        countsByStatus.forEach((status, count) -> invoiceStatsService.recordAdded(status, count, totalsByStatus.get(status)));
+
+        if (!soldSerials.isEmpty()) {
+            Set<Long> batteryProductIds = new HashSet<>();
+            soldSerials.keySet().forEach(product -> batteryProductIds.add(product.getId()));
+            eventPublisher.publishEvent(new SerialIndexService.SerialsChangedEvent(batteryProductIds));
+        }
+    }
+
+    private ChunkLookups loadLookups(List<ImportRecord> records) {
+        Set<Long> clientIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        Set<String> serialNumbers = new HashSet<>();
+        Set<String> invoiceNumbers = new HashSet<>();
+        for (ImportRecord record : records) {
+            InvoiceRequest request = record.request();
+            if (request.getClientId() != null) {
+                clientIds.add(request.getClientId());
+            }
+            if (request.getInvoiceNumber() != null && !request.getInvoiceNumber().isEmpty()) {
+                invoiceNumbers.add(request.getInvoiceNumber());
+            }
+            if (request.getItems() == null) {
+                continue;
+            }
+            for (InvoiceRequest.InvoiceItemRequest item : request.getItems()) {
+                if (item.getProductId() != null) {
+                    productIds.add(item.getProductId());
+                }
+                if (item.getSerialNumbers() != null) {
+                    serialNumbers.addAll(item.getSerialNumbers());
+                }
+            }
+        }
+
+        Map<Long, Client> clients = new HashMap<>();
+        clientRepository.findAllById(clientIds).forEach(client -> clients.put(client.getId(), client));
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Integer> remainingStock = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+            remainingStock.put(product.getId(), product.getStock());
+        }
+        Map<String, Object[]> serialStates = new HashMap<>();
+        Set<String> soldSerials = new HashSet<>();
+        if (!serialNumbers.isEmpty()) {
+            for (Object[] row : inventorySerialRepository.findStates(serialNumbers)) {
+                serialStates.put((String) row[0], row);
+            }
+            soldSerials.addAll(batterySerialRepository.findExistingSerialNumbers(serialNumbers));
+        }
+        Set<String> existingNumbers = invoiceNumbers.isEmpty()
+            ? new HashSet<>()
+            : new HashSet<>(invoiceRepository.findExistingInvoiceNumbers(invoiceNumbers));
+        return new ChunkLookups(clients, products, remainingStock, serialStates, soldSerials, existingNumbers);
+    }
+
+    // Checks a record against the lookups, which already reflect the records accepted before it in this chunk
+    private static String validate(InvoiceRequest request, ChunkLookups lookups) {
+        if (request.getClientId() == null) {
+            return "Client ID is required";
+        }
+        if (!lookups.clients().containsKey(request.getClientId())) {
+            return "Client not found with id: " + request.getClientId();
+        }
+        if (request.getDate() == null) {
+            return "Date is required";
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            return "Items are required";
+        }
+        if (request.getInvoiceNumber() != null && lookups.invoiceNumbers().contains(request.getInvoiceNumber())) {
+            return "Invoice number already exists: " + request.getInvoiceNumber();
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        Set<String> serialsInRecord = new HashSet<>();
+        for (InvoiceRequest.InvoiceItemRequest item : request.getItems()) {
+            if (item.getProductId() == null) {
+                return "Product ID is required";
+            }
+            Product product = lookups.products().get(item.getProductId());
+            if (product == null) {
+                return "Product not found with id: " + item.getProductId();
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                return "Quantity must be positive for product: " + product.getName();
+            }
+            if (item.getPrice() == null || item.getPrice().signum() <= 0) {
+                return "Price must be positive for product: " + product.getName();
+            }
+            if (!Boolean.TRUE.equals(product.getIsBattery())) {
+                quantities.merge(product.getId(), item.getQuantity(), Integer::sum);
+                continue;
+            }
+            if (item.getSerialNumbers() == null || item.getSerialNumbers().isEmpty()) {
+                return "Serial numbers are required for battery products";
+            }
+            if (item.getSerialNumbers().size() != item.getQuantity()) {
+                return "Number of serial numbers must match quantity for batteries";
+            }
+            for (String serialNumber : item.getSerialNumbers()) {
+                Object[] state = lookups.serialStates().get(serialNumber);
+                if (lookups.soldSerials().contains(serialNumber) || !serialsInRecord.add(serialNumber)) {
+                    return "Serial number already sold: " + serialNumber;
+                }
+                if (state == null || !product.getId().equals(state[1]) || !InventorySerial.IN_STOCK.equals(state[2])) {
+                    return "Serial number not available in stock: " + serialNumber;
+                }
+            }
+        }
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (lookups.remainingStock().getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+                return "Insufficient stock for product: " + lookups.products().get(entry.getKey()).getName();
+            }
+        }
+        return null;
+    }
+
+    private void reject(InvoiceImportReport report, long line, String invoiceNumber, String error) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new InvoiceImportReport.RecordError(line, invoiceNumber, error));
+        }
+    }
+
+    private record ImportRecord(long line, InvoiceRequest request) {
+    }
+
+    // Invoice numbers and sold serials grow as records are accepted so later records in the chunk see them
+    private record ChunkLookups(Map<Long, Client> clients, Map<Long, Product> products,
+                                Map<Long, Integer> remainingStock, Map<String, Object[]> serialStates,
+                                Set<String> soldSerials, Set<String> invoiceNumbers) {
+    }
+
+    // Buffers at most one chunk of parsed records
+    private class ImportRun {
+        private final InvoiceImportReport report = new InvoiceImportReport();
+        private final List<ImportRecord> chunk = new ArrayList<>();
+
+        void add(ImportRecord record) {
+            report.setReceived(report.getReceived() + 1);
+            chunk.add(record);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String invoiceNumber, String error) {
+            report.setReceived(report.getReceived() + 1);
+            InvoiceImportService.this.reject(report, line, invoiceNumber, error);
+        }
+
+        InvoiceImportReport finish() {
+            flush();
+            log.info("Invoice import finished: {} received, {} imported, {} failed",
+                report.getReceived(), report.getImported(), report.getFailed());
+            return report;
+        }
+
+        private void flush() {
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+    }
+
+    // Minimal RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks
+    private static class CsvReader {
+        private final BufferedReader reader;
+        private long lineNumber;
+        private boolean exhausted;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        long getLineNumber() {
+            return lineNumber;
+        }
+
+        boolean isExhausted() {
+            return exhausted;
+        }
+
+        // Returns the cells of the next record, or null at the end of the input
+        List<String> next() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                exhausted = true;
+                return null;
+            }
+            lineNumber++;
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    line = reader.readLine();
+                    if (line == null) {
+                        exhausted = true;
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    lineNumber++;
+                    cell.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        cell.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else {
+                    cell.append(c);
+                }
+            }
+            cells.add(cell.toString());
+            return cells;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.billflow.service;
+
+import java.time.LocalDateTime;
+
+// Supplies numbers for invoices created without one; register a @Primary bean to replace the default
+public interface InvoiceNumberGenerator {
+
+    String nextInvoiceNumber(LocalDateTime invoiceDate);
+}
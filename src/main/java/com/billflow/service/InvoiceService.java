@@ -1,38 +1,88 @@
 package com.billflow.service;
 
+import com.billflow.config.MetricsConfig;
 import com.billflow.dto.InvoiceRequest;
 import com.billflow.dto.InvoiceStats;
+import com.billflow.dto.InvoiceStatsDriftReport;
+import com.billflow.dto.InvoiceSummaryDTO;
+import com.billflow.dto.InvoiceSummaryPage;
 import com.billflow.model.BatterySerial;
 import com.billflow.model.Client;
 import com.billflow.model.Invoice;
 import com.billflow.model.InvoiceItem;
 import com.billflow.model.Product;
 import com.billflow.repository.BatterySerialRepository;
+import com.billflow.repository.InvoiceItemRepository;
 import com.billflow.repository.InvoiceRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class InvoiceService {
     
     private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemRepository invoiceItemRepository;
     private final BatterySerialRepository batterySerialRepository;
     private final ClientService clientService;
     private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final InvoiceStatsService invoiceStatsService;
+    private final InvoiceNumberGenerator invoiceNumberGenerator;
+    private final ApplicationEventPublisher eventPublisher;
     
     public List<Invoice> getAllInvoices() {
         return invoiceRepository.findAllOrderByDateDesc();
     }
     
+    // Cursor format is "<invoice date>_<invoice id>" of the last summary already returned
+    public InvoiceSummaryPage getInvoiceSummaries(String status, Long clientId, LocalDateTime fromDate,
+                                                  LocalDateTime toDate, String cursor, int size) {
+        LocalDateTime afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            int separator = cursor.lastIndexOf('_');
+            try {
+                afterDate = LocalDateTime.parse(cursor.substring(0, separator));
+                afterId = Long.valueOf(cursor.substring(separator + 1));
+            } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+                throw new RuntimeException("Invalid invoice cursor: " + cursor);
+            }
+        }
+
+        List<InvoiceSummaryDTO> content = invoiceRepository.findSummaries(
+            status, clientId, fromDate, toDate, afterDate, afterId, Limit.of(size));
+
+        String nextCursor = null;
+        if (content.size() == size) {
+            InvoiceSummaryDTO last = content.get(content.size() - 1);
+            nextCursor = last.getDate() + "_" + last.getId();
+        }
+        return new InvoiceSummaryPage(content, nextCursor);
+    }
+    
     public Invoice getInvoiceById(Long id) {
-        return invoiceRepository.findById(id)
+        return invoiceRepository.findDetailedById(id)
             .orElseThrow(() -> new RuntimeException("Invoice not found with id: " + id));
     }
     
@@ -56,40 +106,24 @@ public class InvoiceService {
     }
     
     public InvoiceStats getInvoiceStats() {
-        List<Invoice> allInvoices = invoiceRepository.findAll();
-        
-        BigDecimal total = allInvoices.stream()
-            .map(Invoice::getTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal paid = allInvoices.stream()
-            .filter(inv -> "paid".equals(inv.getStatus()))
-            .map(Invoice::getTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal pending = allInvoices.stream()
-            .filter(inv -> "pending".equals(inv.getStatus()))
-            .map(Invoice::getTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal overdue = allInvoices.stream()
-            .filter(inv -> "overdue".equals(inv.getStatus()))
-            .map(Invoice::getTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        return new InvoiceStats(total, paid, pending, overdue, (long) allInvoices.size());
+        return invoiceStatsService.getStats();
+    }
+
+    public InvoiceStatsDriftReport reconcileInvoiceStats() {
+        return invoiceStatsService.reconcile();
     }
     
+    // Concurrent sales of the same stock surface as ConcurrencyFailureException; the whole transaction is replayed
+    @Retryable(retryFor = ConcurrencyFailureException.class, maxAttempts = 3,
+               backoff = @Backoff(delay = 20, multiplier = 2, random = true))
     @Transactional
     public Invoice createInvoice(InvoiceRequest request) {
         // Generate invoice number if not provided
         String invoiceNumber = request.getInvoiceNumber();
         if (invoiceNumber == null || invoiceNumber.isEmpty()) {
-            invoiceNumber = generateInvoiceNumber();
-        }
-        
-        // Check if invoice number already exists
-        if (invoiceRepository.existsByInvoiceNumber(invoiceNumber)) {
+            invoiceNumber = invoiceNumberGenerator.nextInvoiceNumber(request.getDate());
+        } else if (invoiceRepository.existsByInvoiceNumber(invoiceNumber)) {
+            // Only caller-supplied numbers can clash; generated ones are unique by construction
             throw new RuntimeException("Invoice number already exists: " + invoiceNumber);
         }
         
@@ -108,101 +142,38 @@ public class InvoiceService {
         invoice.setNotes(request.getNotes());
         
         // Add items
-        BigDecimal subtotal = BigDecimal.ZERO;
+        List<BatterySerial> batterySerials = new ArrayList<>();
+        Map<Long, Product> products = productService.getProductsById(productIds(request.getItems()));
         for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
-            Product product = productService.getProductById(itemRequest.getProductId());
-
-            InvoiceItem item = new InvoiceItem();
-            item.setProduct(product);
-            item.setQuantity(itemRequest.getQuantity());
-            item.setPrice(itemRequest.getPrice());
-
-            // Handle serial numbers for batteries
-            if (Boolean.TRUE.equals(product.getIsBattery())) {
-                if (itemRequest.getSerialNumbers() == null || itemRequest.getSerialNumbers().isEmpty()) {
-                    throw new RuntimeException("Serial numbers are required for battery products");
-                }
-                if (itemRequest.getSerialNumbers().size() != itemRequest.getQuantity()) {
-                    throw new RuntimeException("Number of serial numbers must match quantity for batteries");
-                }
-
-                // Validate that all serial numbers are available in the product
-                for (String serialNumber : itemRequest.getSerialNumbers()) {
-                    if (!product.getSerialNumbers().contains(serialNumber)) {
-                        throw new RuntimeException("Serial number not available in stock: " + serialNumber);
-                    }
-                    // Check if serial number already sold
-                    if (batterySerialRepository.findBySerialNumber(serialNumber).isPresent()) {
-                        throw new RuntimeException("Serial number already sold: " + serialNumber);
-                    }
-                }
-
-                item.setSerialNumbers(itemRequest.getSerialNumbers());
-
-                // Create BatterySerial entries
-                for (String serialNumber : itemRequest.getSerialNumbers()) {
-                    BatterySerial batterySerial = new BatterySerial();
-                    batterySerial.setSerialNumber(serialNumber);
-                    batterySerial.setProduct(product);
-                    batterySerial.setInvoiceItem(item);
-                    batterySerial.setPurchaseDate(request.getDate());
-                    batterySerial.setWarrantyStartDate(request.getDate());
-                    // Use product's warranty duration
-                    batterySerial.setWarrantyEndDate(request.getDate().plusMonths(product.getWarrantyDurationMonths()));
-                    batterySerial.setWarrantyStatus("active");
-                    // Save battery serial - assuming repository exists
-                    batterySerialRepository.save(batterySerial);
-                }
-
-                // Remove sold serials from product and update stock
-                product.getSerialNumbers().removeAll(itemRequest.getSerialNumbers());
-                product.setStock(product.getSerialNumbers().size());
-            } else {
-                // For non-batteries, decrease stock by quantity
-                product.setStock(product.getStock() - itemRequest.getQuantity());
-            }
-
+            InvoiceItem item = sellNewItem(itemRequest, products.get(itemRequest.getProductId()),
+                request.getDate(), batterySerials);
             invoice.addItem(item);
-
-            BigDecimal itemTotal = itemRequest.getPrice()
-                .multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            subtotal = subtotal.add(itemTotal);
-
-            productService.updateProduct(product.getId(), product);
         }
         
         // Calculate totals
-        invoice.setSubtotal(subtotal);
-        BigDecimal taxAmount = subtotal.multiply(request.getTax()).divide(BigDecimal.valueOf(100));
-        BigDecimal discountAmount = subtotal.multiply(request.getDiscount()).divide(BigDecimal.valueOf(100));
-        BigDecimal total = subtotal.add(taxAmount).subtract(discountAmount);
-        invoice.setTotal(total);
+        invoice.recalculateTotals();
         
-        return invoiceRepository.save(invoice);
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        // Written once the items are persistent, as JDBC batches thanks to the pooled id sequence
+        batterySerialRepository.saveAll(batterySerials);
+        invoiceStatsService.recordAdded(savedInvoice.getStatus(), savedInvoice.getTotal());
+        eventPublisher.publishEvent(new SerialIndexService.SerialsChangedEvent(batteryProductIds(savedInvoice.getItems())));
+        return savedInvoice;
     }
     
+    // Applies only the difference between the stored invoice and the request: unchanged lines and
+    // serials are left alone, and a request without items updates the header only
+    @Retryable(retryFor = ConcurrencyFailureException.class, maxAttempts = 3,
+               backoff = @Backoff(delay = 20, multiplier = 2, random = true))
     @Transactional
     public Invoice updateInvoice(Long id, InvoiceRequest request) {
         Invoice invoice = getInvoiceById(id);
+        String previousStatus = invoice.getStatus();
+        BigDecimal previousTotal = invoice.getTotal();
+        LocalDateTime previousDate = invoice.getDate();
+        Set<Long> changedProductIds = batteryProductIds(invoice.getItems());
 
-        // Step 1: Restore stock from existing invoice items before clearing them
-        for (InvoiceItem existingItem : invoice.getItems()) {
-            Product product = existingItem.getProduct();
-            if (Boolean.TRUE.equals(product.getIsBattery())) {
-                // For batteries, add back the serial numbers to available stock
-                product.getSerialNumbers().addAll(existingItem.getSerialNumbers());
-                product.setStock(product.getSerialNumbers().size());
-            } else {
-                // For non-batteries, restore by quantity
-                product.setStock(product.getStock() + existingItem.getQuantity());
-            }
-            productService.updateProduct(product.getId(), product);
-        }
-
-        // Step 2: Clear existing items
-        invoice.getItems().clear();
-
-        // Step 3: Update other invoice details
+        // Step 1: Update invoice details
         if (!invoice.getClient().getId().equals(request.getClientId())) {
             Client client = clientService.getClientById(request.getClientId());
             invoice.setClient(client);
@@ -215,113 +186,223 @@ public class InvoiceService {
         invoice.setStatus(request.getStatus());
         invoice.setNotes(request.getNotes());
 
-        // Step 4: Add new items and decrease stock again
-        BigDecimal subtotal = BigDecimal.ZERO;
-
-        for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
-            Product product = productService.getProductById(itemRequest.getProductId());
-
-            InvoiceItem item = new InvoiceItem();
-            item.setProduct(product);
-            item.setQuantity(itemRequest.getQuantity());
-            item.setPrice(itemRequest.getPrice());
+        List<BatterySerial> batterySerials = new ArrayList<>();
+        List<InvoiceItem> retainedItems = invoice.getItems();
+        if (request.getItems() != null) {
+            // Step 2: Pair each requested line with an unclaimed existing line of the same product
+            List<InvoiceItem> unmatched = new ArrayList<>(invoice.getItems());
+            // A list, not a map: requested lines compare by value, so identical lines must not collapse into one
+            List<LineMatch> matches = new ArrayList<>();
+            for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
+                InvoiceItem existing = unmatched.stream()
+                    .filter(item -> item.getProduct().getId().equals(itemRequest.getProductId()))
+                    .findFirst()
+                    .orElse(null);
+                unmatched.remove(existing);
+                matches.add(new LineMatch(itemRequest, existing));
+            }
 
-            // Handle serial numbers for batteries
-            if (Boolean.TRUE.equals(product.getIsBattery())) {
-                if (itemRequest.getSerialNumbers() == null || itemRequest.getSerialNumbers().isEmpty()) {
-                    throw new RuntimeException("Serial numbers are required for battery products");
+            // Step 3: Give back stock first, so serials moved between lines are free to be sold again
+            for (InvoiceItem removed : unmatched) {
+                releaseItem(removed);
+                invoice.removeItem(removed);
+            }
+            for (LineMatch match : matches) {
+                InvoiceItem item = match.existing();
+                if (item == null) {
+                    continue;
                 }
-                if (itemRequest.getSerialNumbers().size() != itemRequest.getQuantity()) {
-                    throw new RuntimeException("Number of serial numbers must match quantity for batteries");
+                InvoiceRequest.InvoiceItemRequest itemRequest = match.request();
+                Product product = item.getProduct();
+                if (Boolean.TRUE.equals(product.getIsBattery())) {
+                    validateSerials(itemRequest);
+                    List<String> removedSerials = item.getSerialNumbers().stream()
+                        .filter(serial -> !itemRequest.getSerialNumbers().contains(serial))
+                        .toList();
+                    if (!removedSerials.isEmpty()) {
+                        inventoryService.markReturned(product, removedSerials);
+                        batterySerialRepository.deleteBySerialNumbers(removedSerials);
+                    }
+                } else if (itemRequest.getQuantity() < item.getQuantity()) {
+                    inventoryService.release(product, item.getQuantity() - itemRequest.getQuantity());
                 }
+            }
 
-                // Validate that all serial numbers are available in the product
-                for (String serialNumber : itemRequest.getSerialNumbers()) {
-                    if (!product.getSerialNumbers().contains(serialNumber)) {
-                        throw new RuntimeException("Serial number not available in stock: " + serialNumber);
+            // Step 4: Take stock for grown lines, new serials and new lines
+            List<InvoiceRequest.InvoiceItemRequest> newLines = matches.stream()
+                .filter(match -> match.existing() == null)
+                .map(LineMatch::request)
+                .toList();
+            Map<Long, Product> newProducts = productService.getProductsById(productIds(newLines));
+            for (LineMatch match : matches) {
+                InvoiceRequest.InvoiceItemRequest itemRequest = match.request();
+                InvoiceItem item = match.existing();
+                if (item == null) {
+                    InvoiceItem added = sellNewItem(itemRequest, newProducts.get(itemRequest.getProductId()),
+                        request.getDate(), batterySerials);
+                    invoice.addItem(added);
+                    // Persisted as is: saving the managed invoice would merge a copy of a transient line and
+                    // leave its warranty records pointing at the unsaved original
+                    invoiceItemRepository.save(added);
+                    continue;
+                }
+                Product product = item.getProduct();
+                if (Boolean.TRUE.equals(product.getIsBattery())) {
+                    List<String> addedSerials = itemRequest.getSerialNumbers().stream()
+                        .filter(serial -> !item.getSerialNumbers().contains(serial))
+                        .toList();
+                    if (!addedSerials.isEmpty()) {
+                        sellSerials(product, item, addedSerials, request.getDate(), batterySerials);
                     }
-                    // Check if serial number already sold
-                    if (batterySerialRepository.findBySerialNumber(serialNumber).isPresent()) {
-                        throw new RuntimeException("Serial number already sold: " + serialNumber);
+                    if (!item.getSerialNumbers().equals(itemRequest.getSerialNumbers())) {
+                        // Edited in place so Hibernate only rewrites the changed positions
+                        item.getSerialNumbers().clear();
+                        item.getSerialNumbers().addAll(itemRequest.getSerialNumbers());
                     }
+                } else if (itemRequest.getQuantity() > item.getQuantity()) {
+                    inventoryService.reserve(product, itemRequest.getQuantity() - item.getQuantity());
                 }
-
-                item.setSerialNumbers(itemRequest.getSerialNumbers());
-
-                // Create BatterySerial entries
-                for (String serialNumber : itemRequest.getSerialNumbers()) {
-                    BatterySerial batterySerial = new BatterySerial();
-                    batterySerial.setSerialNumber(serialNumber);
-                    batterySerial.setProduct(product);
-                    batterySerial.setInvoiceItem(item);
-                    batterySerial.setPurchaseDate(request.getDate());
-                    // Warranty starts on purchase date
-                    batterySerial.setWarrantyStartDate(request.getDate());
-                    // Use product's warranty duration
-                    batterySerial.setWarrantyEndDate(request.getDate().plusMonths(product.getWarrantyDurationMonths()));
-                    batterySerial.setWarrantyStatus("active");
-                    batterySerialRepository.save(batterySerial);
+                if (!itemRequest.getQuantity().equals(item.getQuantity())) {
+                    item.setQuantity(itemRequest.getQuantity());
+                }
+                if (item.getPrice().compareTo(itemRequest.getPrice()) != 0) {
+                    item.setPrice(itemRequest.getPrice());
                 }
-
-                // Remove sold serials from product and update stock
-                product.getSerialNumbers().removeAll(itemRequest.getSerialNumbers());
-                product.setStock(product.getSerialNumbers().size());
-            } else {
-                // For non-batteries, decrease stock by quantity
-                product.setStock(product.getStock() - itemRequest.getQuantity());
             }
+            retainedItems = matches.stream().map(LineMatch::existing).filter(Objects::nonNull).toList();
+        }
 
-            invoice.addItem(item);
-
-            BigDecimal itemTotal = itemRequest.getPrice()
-                    .multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            subtotal = subtotal.add(itemTotal);
-
-            productService.updateProduct(product.getId(), product);
+        // Step 5: Warranties of batteries kept on the invoice follow its date
+        if (!request.getDate().equals(previousDate)) {
+            for (InvoiceItem item : retainedItems) {
+                Product product = item.getProduct();
+                if (Boolean.TRUE.equals(product.getIsBattery())) {
+                    batterySerialRepository.updateWarrantyDates(item.getId(), request.getDate(),
+                        request.getDate().plusMonths(product.getWarrantyDurationMonths()));
+                }
+            }
         }
 
-        // Step 5: Recalculate totals
-        invoice.setSubtotal(subtotal);
-        BigDecimal taxAmount = subtotal.multiply(request.getTax()).divide(BigDecimal.valueOf(100));
-        BigDecimal discountAmount = subtotal.multiply(request.getDiscount()).divide(BigDecimal.valueOf(100));
-        BigDecimal total = subtotal.add(taxAmount).subtract(discountAmount);
-        invoice.setTotal(total);
+        // Step 6: Recalculate totals
+        invoice.recalculateTotals();
 
-        return invoiceRepository.save(invoice);
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        // Written once the items are persistent, as JDBC batches thanks to the pooled id sequence
+        batterySerialRepository.saveAll(batterySerials);
+        invoiceStatsService.recordChanged(previousStatus, previousTotal, savedInvoice.getStatus(), savedInvoice.getTotal());
+        changedProductIds.addAll(batteryProductIds(savedInvoice.getItems()));
+        eventPublisher.publishEvent(new SerialIndexService.SerialsChangedEvent(changedProductIds));
+        return savedInvoice;
     }
 
-    
+    @Retryable(retryFor = ConcurrencyFailureException.class, maxAttempts = 3,
+               backoff = @Backoff(delay = 20, multiplier = 2, random = true))
     @Transactional
     public Invoice updateInvoiceStatus(Long id, String status) {
         Invoice invoice = getInvoiceById(id);
+        String previousStatus = invoice.getStatus();
         invoice.setStatus(status);
-        return invoiceRepository.save(invoice);
+        Invoice saved = invoiceRepository.save(invoice);
+        invoiceStatsService.recordChanged(previousStatus, saved.getTotal(), status, saved.getTotal());
+        // Touch the serial lists before commit: the commit flush discards Hibernate's pending batch,
+        // so serializing the response afterwards would fetch each item's serials separately
+        saved.getItems().forEach(item -> Hibernate.initialize(item.getSerialNumbers()));
+        return saved;
     }
     
+    @Retryable(retryFor = ConcurrencyFailureException.class, maxAttempts = 3,
+               backoff = @Backoff(delay = 20, multiplier = 2, random = true))
     @Transactional
     public void deleteInvoice(Long id) {
         Invoice invoice = getInvoiceById(id);
 
         // Step 1: Restore stock for all items in this invoice
         for (InvoiceItem item : invoice.getItems()) {
-            Product product = item.getProduct();
-            if (Boolean.TRUE.equals(product.getIsBattery())) {
-                // For batteries, add back the serial numbers to available stock
-                product.getSerialNumbers().addAll(item.getSerialNumbers());
-                product.setStock(product.getSerialNumbers().size());
-            } else {
-                // For non-batteries, restore by quantity
-                product.setStock(product.getStock() + item.getQuantity());
-            }
-            productService.updateProduct(product.getId(), product);
+            releaseItem(item);
         }
 
         // Step 2: Delete invoice
         invoiceRepository.delete(invoice);
+        invoiceStatsService.recordRemoved(invoice.getStatus(), invoice.getTotal());
+        eventPublisher.publishEvent(new SerialIndexService.SerialsChangedEvent(batteryProductIds(invoice.getItems())));
     }
 
     
-    private String generateInvoiceNumber() {
-        return "INV-" + System.currentTimeMillis();
+    // Sells the stock for a new line and returns its item; BatterySerial rows are collected for writing
+    // once the item is persistent
+    private InvoiceItem sellNewItem(InvoiceRequest.InvoiceItemRequest itemRequest, Product product,
+                                    LocalDateTime invoiceDate, List<BatterySerial> batterySerials) {
+        InvoiceItem item = new InvoiceItem();
+        item.setProduct(product);
+        item.setQuantity(itemRequest.getQuantity());
+        item.setPrice(itemRequest.getPrice());
+
+        // Handle serial numbers for batteries
+        if (Boolean.TRUE.equals(product.getIsBattery())) {
+            validateSerials(itemRequest);
+            sellSerials(product, item, itemRequest.getSerialNumbers(), invoiceDate, batterySerials);
+            item.setSerialNumbers(new ArrayList<>(itemRequest.getSerialNumbers()));
+        } else {
+            // For non-batteries, decrease stock by quantity; fails instead of overselling
+            inventoryService.reserve(product, itemRequest.getQuantity());
+        }
+        return item;
+    }
+
+    private static void validateSerials(InvoiceRequest.InvoiceItemRequest itemRequest) {
+        if (itemRequest.getSerialNumbers() == null || itemRequest.getSerialNumbers().isEmpty()) {
+            throw new RuntimeException("Serial numbers are required for battery products");
+        }
+        if (itemRequest.getSerialNumbers().size() != itemRequest.getQuantity()) {
+            throw new RuntimeException("Number of serial numbers must match quantity for batteries");
+        }
+    }
+
+    private void sellSerials(Product product, InvoiceItem item, List<String> serialNumbers,
+                             LocalDateTime invoiceDate, List<BatterySerial> batterySerials) {
+        // Validate that all serial numbers are available in the product and mark them sold
+        inventoryService.markSold(product, serialNumbers);
+
+        // Check if any serial number was already sold, with one IN query per item
+        List<BatterySerial> alreadySold = batterySerialRepository.findBySerialNumbers(serialNumbers);
+        if (!alreadySold.isEmpty()) {
+            throw new RuntimeException("Serial number already sold: " + alreadySold.get(0).getSerialNumber());
+        }
+
+        // Create BatterySerial entries
+        for (String serialNumber : serialNumbers) {
+            batterySerials.add(BatterySerial.sold(serialNumber, product, item, invoiceDate));
+        }
+    }
+
+    // Returns a line's stock and drops its warranty records, which reference the item row
+    private void releaseItem(InvoiceItem item) {
+        Product product = item.getProduct();
+        if (Boolean.TRUE.equals(product.getIsBattery())) {
+            // For batteries, add back the serial numbers to available stock
+            inventoryService.markReturned(product, item.getSerialNumbers());
+            batterySerialRepository.deleteByInvoiceItemId(item.getId());
+        } else {
+            // For non-batteries, restore by quantity
+            inventoryService.release(product, item.getQuantity());
+        }
+    }
+
+    private static List<Long> productIds(List<InvoiceRequest.InvoiceItemRequest> itemRequests) {
+        return itemRequests.stream().map(InvoiceRequest.InvoiceItemRequest::getProductId).toList();
+    }
+
+    private static Set<Long> batteryProductIds(List<InvoiceItem> items) {
+        Set<Long> productIds = new HashSet<>();
+        for (InvoiceItem item : items) {
+            if (Boolean.TRUE.equals(item.getProduct().getIsBattery())) {
+                productIds.add(item.getProduct().getId());
+            }
+        }
+        return productIds;
+    }
+
+    // A requested line and the existing line it updates, or null for a new line
+    private record LineMatch(InvoiceRequest.InvoiceItemRequest request, InvoiceItem existing) {
     }
 }
\ No newline at end of file
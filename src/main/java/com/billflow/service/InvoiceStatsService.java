@@ -0,0 +1,184 @@
+package com.billflow.service;
+
+import com.billflow.dto.InvoiceStats;
+import com.billflow.dto.InvoiceStatsDriftReport;
+import com.billflow.model.InvoiceStatusTotal;
+import com.billflow.repository.InvoiceRepository;
+import com.billflow.repository.InvoiceStatusTotalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceStatsService {
+
+    // Always present so the dashboard figures have a row to increment from the first invoice on
+    private static final List<String> DASHBOARD_STATUSES = List.of("paid", "pending", "overdue");
+
+    // Order in which status rows are updated when one transaction touches several of them
+    public static final Comparator<String> STATUS_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final InvoiceStatusTotalRepository statusTotalRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Transactional(readOnly = true)
+    public InvoiceStats getStats() {
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        Map<String, BigDecimal> totalsByStatus = new HashMap<>();
+        for (InvoiceStatusTotal row : statusTotalRepository.findAll()) {
+            total = total.add(row.getTotal());
+            count += row.getInvoiceCount();
+            totalsByStatus.put(row.getStatus(), row.getTotal());
+        }
+        return new InvoiceStats(total,
+            totalsByStatus.getOrDefault("paid", BigDecimal.ZERO),
+            totalsByStatus.getOrDefault("pending", BigDecimal.ZERO),
+            totalsByStatus.getOrDefault("overdue", BigDecimal.ZERO),
+            count);
+    }
+
+    // The record* methods join the invoice write transaction; call them after the invoice has been saved
+    @Transactional
+    public void recordAdded(String status, BigDecimal total) {
+        adjust(status, 1, total);
+    }
+
+    // Bulk variant for imports: count invoices with this status, together worth total
+    @Transactional
+    public void recordAdded(String status, long count, BigDecimal total) {
+        adjust(status, count, total);
+    }
+
+    @Transactional
+    public void recordRemoved(String status, BigDecimal total) {
+        adjust(status, -1, total.negate());
+    }
+
+    @Transactional
+    public void recordChanged(String previousStatus, BigDecimal previousTotal, String status, BigDecimal total) {
+        if (Objects.equals(previousStatus, status)) {
+            BigDecimal delta = total.subtract(previousTotal);
+            if (delta.signum() != 0) {
+                adjust(status, 0, delta);
+            }
+            return;
+        }
+        // Both rows are updated in status order, so two opposite changes lock them in the same order instead of
+        // deadlocking
+        if (STATUS_ORDER.compare(previousStatus, status) < 0) {
+            recordRemoved(previousStatus, previousTotal);
+            recordAdded(status, total);
+        } else {
+            recordAdded(status, total);
+            recordRemoved(previousStatus, previousTotal);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcileOnStartup() {
+        logDrift(reconcile());
+    }
+
+    @Scheduled(cron = "${billflow.invoice-stats.reconcile-cron:0 30 2 * * *}")
+    @Transactional
+    public void reconcileOnSchedule() {
+        logDrift(reconcile());
+    }
+
+    // Rebuilds the running totals from the invoices table and reports every status that had drifted
+    @Transactional
+    public InvoiceStatsDriftReport reconcile() {
+        // Locking the rows first makes concurrent invoice writes wait until the rebuilt totals are committed
+        Map<String, InvoiceStatusTotal> stored = new HashMap<>();
+        for (InvoiceStatusTotal row : statusTotalRepository.findAllForUpdate()) {
+            stored.put(row.getStatus(), row);
+        }
+        Map<String, InvoiceStatusTotal> actual = new HashMap<>();
+        for (InvoiceStatusTotal row : invoiceRepository.sumTotalsGroupedByStatus()) {
+            actual.put(row.getStatus(), row);
+        }
+
+        Set<String> statuses = new TreeSet<>(DASHBOARD_STATUSES);
+        statuses.addAll(stored.keySet());
+        statuses.addAll(actual.keySet());
+
+        List<InvoiceStatsDriftReport.StatusDrift> drifts = new ArrayList<>();
+        List<InvoiceStatusTotal> rebuilt = new ArrayList<>();
+        for (String status : statuses) {
+            InvoiceStatusTotal expected = actual.getOrDefault(status, new InvoiceStatusTotal(status, 0L, BigDecimal.ZERO));
+            InvoiceStatusTotal row = stored.get(status);
+            if (row == null) {
+                row = new InvoiceStatusTotal(status, 0L, BigDecimal.ZERO);
+                // A missing row only counts as drift when invoices with that status exist
+                if (expected.getInvoiceCount() > 0) {
+                    drifts.add(drift(status, null, expected));
+                }
+            } else if (!row.getInvoiceCount().equals(expected.getInvoiceCount())
+                    || row.getTotal().compareTo(expected.getTotal()) != 0) {
+                drifts.add(drift(status, row, expected));
+            }
+            row.setInvoiceCount(expected.getInvoiceCount());
+            row.setTotal(expected.getTotal());
+            rebuilt.add(row);
+        }
+        statusTotalRepository.saveAll(rebuilt);
+        return new InvoiceStatsDriftReport(LocalDateTime.now(), drifts);
+    }
+
+    private void adjust(String status, long countDelta, BigDecimal totalDelta) {
+        if (statusTotalRepository.adjust(status, countDelta, totalDelta) == 0) {
+            // First invoice with a status outside the seeded ones: the zero row is committed on its own, so a
+            // concurrent first invoice of the same status finds it instead of failing this transaction, and
+            // the increment is applied to it like any other
+            TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+            newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            try {
+                newTransaction.executeWithoutResult(txStatus -> statusTotalRepository.insertEmpty(status));
+            } catch (DataIntegrityViolationException e) {
+                // Another transaction created the row first
+            }
+            statusTotalRepository.adjust(status, countDelta, totalDelta);
+        }
+    }
+
+    private static InvoiceStatsDriftReport.StatusDrift drift(String status, InvoiceStatusTotal stored, InvoiceStatusTotal expected) {
+        return new InvoiceStatsDriftReport.StatusDrift(status,
+            stored == null ? 0L : stored.getInvoiceCount(), expected.getInvoiceCount(),
+            stored == null ? BigDecimal.ZERO : stored.getTotal(), expected.getTotal());
+    }
+
+    private static void logDrift(InvoiceStatsDriftReport report) {
+        if (report.getDrifts().isEmpty()) {
+            log.info("Invoice stats reconciled, running totals were accurate");
+            return;
+        }
+        for (InvoiceStatsDriftReport.StatusDrift drift : report.getDrifts()) {
+            log.warn("Invoice stats drift for status '{}': count {} -> {}, total {} -> {}", drift.getStatus(),
+                drift.getStoredCount(), drift.getActualCount(), drift.getStoredTotal(), drift.getActualTotal());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.billflow.service;
+
+import com.billflow.repository.JobLockRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Database-backed mutual exclusion for scheduled jobs across application instances. Each call commits on its
+// own so other instances see the lease immediately
+@Service
+@RequiredArgsConstructor
+public class JobLockService {
+
+    private static final String OWNER = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    private final JobLockRepository jobLockRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Leases the named lock to this instance; false while another instance holds an unexpired lease
+    public boolean tryLock(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockedUntil = now.plus(lease);
+        Integer acquired = transactionTemplate.execute(status -> jobLockRepository.acquire(name, now, lockedUntil, OWNER));
+        if (acquired != null && acquired == 1) {
+            return true;
+        }
+        if (jobLockRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jobLockRepository.insert(name, lockedUntil, OWNER));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the lock first
+            return false;
+        }
+    }
+
+    // Pushes the lease of a lock this instance holds out by another lease; false if it has already lost it
+    public boolean renew(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer renewed = transactionTemplate.execute(status -> jobLockRepository.renew(name, now, now.plus(lease), OWNER));
+        return renewed != null && renewed == 1;
+    }
+
+    public void unlock(String name) {
+        transactionTemplate.executeWithoutResult(status -> jobLockRepository.release(name, OWNER, LocalDateTime.now()));
+    }
+}
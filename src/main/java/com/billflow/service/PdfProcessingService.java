@@ -1,5 +1,7 @@
 package com.billflow.service;
 
+import com.billflow.config.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -11,6 +13,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Slf4j
 public class PdfProcessingService {
 
@@ -1,28 +1,62 @@
 package com.billflow.service;
 
+import com.billflow.config.CacheConfig;
 import com.billflow.model.Product;
 import com.billflow.model.Supplier;
+import com.billflow.repository.InventorySerialRepository;
 import com.billflow.repository.InvoiceItemRepository;
 import com.billflow.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ProductService {
 
     private final ProductRepository productRepository;
     private final SupplierService supplierService;
     private final InvoiceItemRepository invoiceItemRepository;
+    private final InventorySerialRepository inventorySerialRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryService inventoryService;
+
+    // Serve "sold" from the products.sold_count column instead of aggregating invoice items per request
+    @Value("${billflow.products.materialized-sold-count:false}")
+    private boolean materializedSoldCount;
     
+    // Catalog listings and single products are cached as served, serials and sold figures included; callers must
+    // not modify them. InventoryService evicts them on every stock movement
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_CATALOG, key = "'all'")
     public List<Product> getAllProducts() {
-        List<Product> products = productRepository.findAll();
+        List<Product> products = withSerialNumbers(productRepository.findAll());
+        if (materializedSoldCount) {
+            for (Product product : products) {
+                product.setSold(product.getSoldCount());
+            }
+            return products;
+        }
+        Map<Long, Integer> soldByProduct = invoiceItemRepository.getTotalSoldQuantities();
         for (Product product : products) {
-            Integer sold = invoiceItemRepository.getTotalSoldQuantity(product.getId());
-            product.setSold(sold != null ? sold : 0);
+            product.setSold(soldByProduct.getOrDefault(product.getId(), 0));
         }
         return products;
     }
@@ -32,35 +66,71 @@ public class ProductService {
             .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
     
+    // All products of an invoice in one query; an unknown id fails just like getProductById
+    public Map<Long, Product> getProductsById(Collection<Long> ids) {
+        Map<Long, Product> products = productRepository.findAllById(new LinkedHashSet<>(ids)).stream()
+            .collect(Collectors.toMap(Product::getId, product -> product));
+        for (Long id : ids) {
+            if (!products.containsKey(id)) {
+                throw new RuntimeException("Product not found with id: " + id);
+            }
+        }
+        return products;
+    }
+    
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public Product getProductWithSerialNumbers(Long id) {
+        Product product = getProductById(id);
+        if (Boolean.TRUE.equals(product.getIsBattery())) {
+            product.setSerialNumbers(inventorySerialRepository.findInStockSerialNumbers(id));
+        }
+        return product;
+    }
+    
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_CATALOG, key = "'category:' + #category")
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+        return withSerialNumbers(productRepository.findByCategory(category));
     }
 
     public Product getProductBySerialNumber(String serialNumber) {
-        return productRepository.findBySerialNumber(serialNumber)
+        Product product = productRepository.findBySerialNumber(serialNumber)
             .orElseThrow(() -> new RuntimeException("Product not found with serial number: " + serialNumber));
+        return getProductWithSerialNumbers(product.getId());
     }
 
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_CATALOG, key = "'batteries'")
     public List<Product> getBatteryProducts() {
-        return productRepository.findByIsBattery(true);
+        return withSerialNumbers(productRepository.findByIsBattery(true));
     }
 
     public List<String> getAvailableSerialNumbers(Long productId) {
-        Product product = getProductById(productId);
-        return product.getSerialNumbers();
+        getProductById(productId);
+        return inventorySerialRepository.findInStockSerialNumbers(productId);
     }
     
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_CATALOG, allEntries = true)
     @Transactional
     public Product createProduct(Product product) {
         if (product.getSupplier() == null) {
             throw new RuntimeException("Supplier is required for products");
         }
+        List<String> serialNumbers = distinct(product.getSerialNumbers());
         if (Boolean.TRUE.equals(product.getIsBattery())) {
-            product.setStock(product.getSerialNumbers() != null ? product.getSerialNumbers().size() : 0);
+            product.setStock(serialNumbers.size());
         }
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        if (Boolean.TRUE.equals(savedProduct.getIsBattery())) {
+            inventoryService.stockSerials(savedProduct, serialNumbers);
+            savedProduct.setSerialNumbers(serialNumbers);
+        }
+        eventPublisher.publishEvent(new SerialIndexService.SerialsChangedEvent(Set.of(savedProduct.getId())));
+        return savedProduct;
     }
     
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCT_CATALOG, allEntries = true)
+    })
     @Transactional
     public Product updateProduct(Long id, Product productDetails) {
         Product product = getProductById(id);
@@ -74,21 +144,78 @@ public class ProductService {
         product.setPrice(productDetails.getPrice());
         product.setCategory(productDetails.getCategory());
         product.setSupplier(productDetails.getSupplier());
-        product.setSerialNumbers(productDetails.getSerialNumbers());
         product.setIsBattery(productDetails.getIsBattery());
         product.setWarrantyDurationMonths(productDetails.getWarrantyDurationMonths());
         if (Boolean.TRUE.equals(product.getIsBattery())) {
-            product.setStock(product.getSerialNumbers() != null ? product.getSerialNumbers().size() : 0);
+            // Only the serials that were added or removed are written; a null list leaves serial stock untouched
+            List<String> current = inventorySerialRepository.findInStockSerialNumbers(id);
+            if (productDetails.getSerialNumbers() != null) {
+                List<String> requested = distinct(productDetails.getSerialNumbers());
+                Set<String> requestedSet = new LinkedHashSet<>(requested);
+                Set<String> currentSet = new LinkedHashSet<>(current);
+
+                List<String> removed = current.stream().filter(serial -> !requestedSet.contains(serial)).toList();
+                List<String> added = requested.stream().filter(serial -> !currentSet.contains(serial)).toList();
+                inventoryService.unstockSerials(product, removed);
+                inventoryService.stockSerials(product, added);
+                current = requested;
+            }
+            product.setSerialNumbers(current);
+            product.setStock(current.size());
         } else {
             product.setStock(productDetails.getStock());
         }
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new SerialIndexService.SerialsChangedEvent(Set.of(id)));
+        return savedProduct;
     }
     
+    // Counters are kept current by invoice writes; rebuild once at startup so they start from the truth
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildSoldCounts() {
+        if (materializedSoldCount) {
+            int updated = productRepository.rebuildSoldCounts();
+            log.info("Rebuilt materialized sold counts for {} products", updated);
+        }
+    }
+
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCT_CATALOG, allEntries = true)
+    })
     @Transactional
     public void deleteProduct(Long id) {
         Product product = getProductById(id);
+        // inventory_serials rows reference the product and are not removed with it
+        inventorySerialRepository.deleteByProductId(id);
         productRepository.delete(product);
+        eventPublisher.publishEvent(new SerialIndexService.SerialsChangedEvent(Set.of(id)));
+    }
+
+    private List<Product> withSerialNumbers(List<Product> products) {
+        List<Long> batteryIds = products.stream()
+            .filter(product -> Boolean.TRUE.equals(product.getIsBattery()))
+            .map(Product::getId)
+            .toList();
+        if (batteryIds.isEmpty()) {
+            return products;
+        }
+
+        Map<Long, List<String>> serialsByProduct = new HashMap<>();
+        for (Object[] row : inventorySerialRepository.findInStockSerialNumbersByProductIds(batteryIds)) {
+            serialsByProduct.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        for (Product product : products) {
+            if (Boolean.TRUE.equals(product.getIsBattery())) {
+                product.setSerialNumbers(serialsByProduct.getOrDefault(product.getId(), new ArrayList<>()));
+            }
+        }
+        return products;
+    }
+
+    private static List<String> distinct(Collection<String> serialNumbers) {
+        return serialNumbers == null ? new ArrayList<>() : new ArrayList<>(new LinkedHashSet<>(serialNumbers));
     }
-}
+}
\ No newline at end of file
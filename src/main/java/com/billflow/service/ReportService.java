@@ -1,20 +1,34 @@
 package com.billflow.service;
 
+import com.billflow.config.MetricsConfig;
 import com.billflow.dto.*;
 import com.billflow.model.*;
 import com.billflow.repository.*;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class ReportService {
 
@@ -22,89 +36,59 @@ public class ReportService {
     private final InvoiceItemRepository invoiceItemRepository;
     private final ProductRepository productRepository;
     private final ClientRepository clientRepository;
+    private final SerialIndexService serialIndexService;
+    private final EntityManager entityManager;
 
     public SalesSummaryReportDTO getSalesSummary(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Invoice> invoices = invoiceRepository.findAll().stream()
-            .filter(inv -> !inv.getDate().isBefore(startDate) && !inv.getDate().isAfter(endDate))
-            .collect(Collectors.toList());
+        List<InvoiceStatusTotals> totals = invoiceRepository.sumTotalsByStatus(startDate, endDate, startDate);
 
-        BigDecimal totalRevenue = invoices.stream()
-            .map(Invoice::getTotal)
+        BigDecimal totalRevenue = totals.stream()
+            .map(InvoiceStatusTotals::getTotal)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        Integer totalInvoices = invoices.size();
+        Integer totalInvoices = (int) totals.stream()
+            .mapToLong(InvoiceStatusTotals::getCount)
+            .sum();
 
         BigDecimal averageOrderValue = totalInvoices > 0 ?
-            totalRevenue.divide(BigDecimal.valueOf(totalInvoices), 2, BigDecimal.ROUND_HALF_UP) :
+            totalRevenue.divide(BigDecimal.valueOf(totalInvoices), 2, RoundingMode.HALF_UP) :
             BigDecimal.ZERO;
 
-        Integer totalProductsSold = invoices.stream()
-            .mapToInt(inv -> inv.getItems().stream().mapToInt(InvoiceItem::getQuantity).sum())
-            .sum();
+        Integer totalProductsSold = invoiceItemRepository.getTotalSoldQuantityBetween(startDate, endDate).intValue();
 
         return new SalesSummaryReportDTO(totalRevenue, totalInvoices, averageOrderValue, totalProductsSold);
     }
 
-    public List<ProductPerformanceDTO> getProductPerformance(LocalDateTime startDate, LocalDateTime endDate) {
-        return productRepository.findAll().stream()
-            .map(product -> {
-                Integer sold = invoiceItemRepository.getTotalSoldQuantity(product.getId());
-                if (sold == null) sold = 0;
-
-                // Calculate revenue for this product in date range
-                BigDecimal revenue = invoiceRepository.findAll().stream()
-                    .filter(inv -> !inv.getDate().isBefore(startDate) && !inv.getDate().isAfter(endDate))
-                    .flatMap(inv -> inv.getItems().stream())
-                    .filter(item -> item.getProduct().getId().equals(product.getId()))
-                    .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                return new ProductPerformanceDTO(
-                    product.getId(),
-                    product.getName(),
-                    product.getCategory(),
-                    sold,
-                    revenue,
-                    product.getStock()
-                );
-            })
-            .collect(Collectors.toList());
+    public Page<ProductPerformanceDTO> getProductPerformance(LocalDateTime startDate, LocalDateTime endDate,
+                                                             Pageable pageable) {
+        return productRepository.getProductPerformance(startDate, endDate, pageable);
     }
 
     public FinancialSummaryDTO getFinancialSummary(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Invoice> invoices = invoiceRepository.findAll().stream()
-            .filter(inv -> !inv.getDate().isBefore(startDate) && !inv.getDate().isAfter(endDate))
-            .collect(Collectors.toList());
-
-        BigDecimal totalRevenue = invoices.stream()
-            .map(Invoice::getTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // For overdue, assuming overdue if pending and date is before today
+        Map<String, InvoiceStatusTotals> totals = invoiceRepository
+            .sumTotalsByStatus(startDate, endDate, LocalDate.now().atStartOfDay()).stream()
+            .collect(Collectors.toMap(InvoiceStatusTotals::getStatus, Function.identity()));
 
-        BigDecimal paidAmount = invoices.stream()
-            .filter(inv -> "paid".equalsIgnoreCase(inv.getStatus()) || "Paid".equals(inv.getStatus()))
-            .map(Invoice::getTotal)
+        BigDecimal totalRevenue = totals.values().stream()
+            .map(InvoiceStatusTotals::getTotal)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        BigDecimal pendingAmount = invoices.stream()
-            .filter(inv -> "pending".equalsIgnoreCase(inv.getStatus()) || "Pending".equals(inv.getStatus()))
-            .map(Invoice::getTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        InvoiceStatusTotals paid = totals.get("paid");
+        InvoiceStatusTotals pending = totals.get("pending");
 
-        // For overdue, assuming overdue if pending and date is before today
-        BigDecimal overdueAmount = invoices.stream()
-            .filter(inv -> ("pending".equalsIgnoreCase(inv.getStatus()) || "Pending".equals(inv.getStatus()))
-                && inv.getDate().toLocalDate().isBefore(LocalDate.now()))
-            .map(Invoice::getTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal paidAmount = paid != null ? paid.getTotal() : BigDecimal.ZERO;
+        BigDecimal pendingAmount = pending != null ? pending.getTotal() : BigDecimal.ZERO;
+        BigDecimal overdueAmount = pending != null ? pending.getTotalBefore() : BigDecimal.ZERO;
 
         return new FinancialSummaryDTO(totalRevenue, paidAmount, pendingAmount, overdueAmount);
     }
 
     public List<InventoryStatusDTO> getInventoryStatus() {
+        Map<Long, Integer> soldByProduct = invoiceItemRepository.getTotalSoldQuantities();
         return productRepository.findAll().stream()
             .map(product -> {
-                Integer sold = invoiceItemRepository.getTotalSoldQuantity(product.getId());
-                if (sold == null) sold = 0;
+                Integer sold = soldByProduct.getOrDefault(product.getId(), 0);
 
                 BigDecimal totalValue = product.getPrice().multiply(BigDecimal.valueOf(product.getStock()));
 
@@ -132,93 +116,72 @@ public class ReportService {
             .collect(Collectors.toList());
     }
 
-    public List<BatterySerialReportDTO> getBatterySerialReport(String serialNumber) {
-        List<BatterySerialReportDTO> results = new ArrayList<>();
+    @Transactional(readOnly = true)
+    public List<BatterySerialReportDTO> getBatterySerialReport(String serialNumber, String cursor, int limit) {
+        List<SerialIndexService.SerialMatch> matches = serialIndexService.search(serialNumber, cursor, limit);
 
-        // First, find serials in current inventory (in stock)
-        List<Product> products = productRepository.findAll().stream()
-            .filter(product -> product.getSerialNumbers() != null &&
-                product.getSerialNumbers().stream()
-                    .anyMatch(serial -> serial.toLowerCase().contains(serialNumber.toLowerCase())))
-            .collect(Collectors.toList());
+        if (matches.isEmpty() && cursor == null) {
+            throw new RuntimeException("No products found with serial number containing: " + serialNumber);
+        }
 
-        for (Product product : products) {
-            List<String> matchingSerials = product.getSerialNumbers().stream()
-                .filter(serial -> serial.toLowerCase().contains(serialNumber.toLowerCase()))
-                .collect(Collectors.toList());
-
-            for (String actualSerial : matchingSerials) {
-                BatterySerialReportDTO dto = new BatterySerialReportDTO();
-                dto.setSearchSerialNumber(serialNumber);
-                dto.setActualSerialNumber(actualSerial);
-                dto.setProductId(product.getId());
-                dto.setProductName(product.getName());
-                dto.setCategory(product.getCategory());
-                dto.setDescription(product.getDescription());
-                dto.setPrice(product.getPrice());
-                dto.setSupplierName(product.getSupplier() != null ? product.getSupplier().getName() : "N/A");
-                dto.setWarrantyMonths(product.getWarrantyDurationMonths());
-                dto.setStatus("In Stock");
-                dto.setWarrantyStatus("N/A");
+        Set<Long> productIds = matches.stream()
+            .map(SerialIndexService.SerialMatch::productId)
+            .collect(Collectors.toSet());
+        // Products and suppliers already in the second-level cache are taken from there; only the rest are queried
+        Map<Long, Product> products = entityManager.unwrap(Session.class).byMultipleIds(Product.class)
+            .with(CacheMode.NORMAL)
+            .multiLoad(List.copyOf(productIds)).stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Set<Long> itemIds = matches.stream()
+            .filter(SerialIndexService.SerialMatch::isSold)
+            .map(SerialIndexService.SerialMatch::invoiceItemId)
+            .collect(Collectors.toSet());
+        Map<Long, InvoiceItemSaleDTO> sales = itemIds.isEmpty() ? Map.of() :
+            invoiceItemRepository.findSaleDetails(itemIds).stream()
+                .collect(Collectors.toMap(InvoiceItemSaleDTO::getInvoiceItemId, Function.identity()));
 
-                results.add(dto);
+        List<BatterySerialReportDTO> results = new ArrayList<>();
+        for (SerialIndexService.SerialMatch match : matches) {
+            Product product = products.get(match.productId());
+            if (product == null) {
+                continue;
             }
-        }
-
-        // Then, find serials in sold items
-        List<InvoiceItem> soldItems = invoiceItemRepository.findAll().stream()
-            .filter(item -> item.getSerialNumbers() != null &&
-                item.getSerialNumbers().stream()
-                    .anyMatch(serial -> serial.toLowerCase().contains(serialNumber.toLowerCase())))
-            .collect(Collectors.toList());
 
-        for (InvoiceItem soldItem : soldItems) {
-            List<String> matchingSerials = soldItem.getSerialNumbers().stream()
-                .filter(serial -> serial.toLowerCase().contains(serialNumber.toLowerCase()))
-                .collect(Collectors.toList());
-
-            for (String actualSerial : matchingSerials) {
-                // Check if this serial is already in results (shouldn't be, but to avoid duplicates)
-                boolean alreadyExists = results.stream()
-                    .anyMatch(dto -> dto.getActualSerialNumber().equals(actualSerial));
-
-                if (!alreadyExists) {
-                    Product product = soldItem.getProduct();
-                    Invoice invoice = soldItem.getInvoice();
-
-                    BatterySerialReportDTO dto = new BatterySerialReportDTO();
-                    dto.setSearchSerialNumber(serialNumber);
-                    dto.setActualSerialNumber(actualSerial);
-                    dto.setProductId(product.getId());
-                    dto.setProductName(product.getName());
-                    dto.setCategory(product.getCategory());
-                    dto.setDescription(product.getDescription());
-                    dto.setPrice(product.getPrice());
-                    dto.setSupplierName(product.getSupplier() != null ? product.getSupplier().getName() : "N/A");
-                    dto.setWarrantyMonths(product.getWarrantyDurationMonths());
-                    dto.setStatus("Sold");
-                    dto.setInvoiceNumber(invoice.getInvoiceNumber());
-                    dto.setSaleDate(invoice.getDate().toLocalDate());
-                    dto.setSalePrice(soldItem.getPrice());
-
-                    Client client = invoice.getClient();
-                    dto.setCustomerId(client.getId());
-                    dto.setCustomerName(client.getName());
-                    dto.setCustomerPhone(client.getPhone());
-                    dto.setCustomerEmail(client.getEmail());
-
-                    // Warranty expiry
-                    LocalDate expiry = invoice.getDate().toLocalDate().plusMonths(product.getWarrantyDurationMonths());
-                    dto.setWarrantyExpiry(expiry);
-                    dto.setWarrantyStatus(expiry.isAfter(LocalDate.now()) ? "Active" : "Expired");
-
-                    results.add(dto);
-                }
+            BatterySerialReportDTO dto = new BatterySerialReportDTO();
+            dto.setSearchSerialNumber(serialNumber);
+            dto.setActualSerialNumber(match.serialNumber());
+            dto.setProductId(product.getId());
+            dto.setProductName(product.getName());
+            dto.setCategory(product.getCategory());
+            dto.setDescription(product.getDescription());
+            dto.setPrice(product.getPrice());
+            dto.setSupplierName(product.getSupplier() != null ? product.getSupplier().getName() : "N/A");
+            dto.setWarrantyMonths(product.getWarrantyDurationMonths());
+
+            InvoiceItemSaleDTO sale = match.isSold() ? sales.get(match.invoiceItemId()) : null;
+            if (sale == null) {
+                dto.setStatus("In Stock");
+                dto.setWarrantyStatus("N/A");
+            } else {
+                dto.setStatus("Sold");
+                dto.setInvoiceNumber(sale.getInvoiceNumber());
+                dto.setSaleDate(sale.getInvoiceDate().toLocalDate());
+                dto.setSalePrice(sale.getSalePrice());
+
+                dto.setCustomerId(sale.getCustomerId());
+                dto.setCustomerName(sale.getCustomerName());
+                dto.setCustomerPhone(sale.getCustomerPhone());
+                dto.setCustomerEmail(sale.getCustomerEmail());
+
+                // Warranty expiry
+                LocalDate expiry = sale.getInvoiceDate().toLocalDate().plusMonths(product.getWarrantyDurationMonths());
+                dto.setWarrantyExpiry(expiry);
+                dto.setWarrantyStatus(expiry.isAfter(LocalDate.now()) ? "Active" : "Expired");
             }
-        }
 
-        if (results.isEmpty()) {
-            throw new RuntimeException("No products found with serial number containing: " + serialNumber);
+            results.add(dto);
         }
 
         return results;
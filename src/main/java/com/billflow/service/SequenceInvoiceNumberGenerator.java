@@ -0,0 +1,73 @@
+package com.billflow.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Numbers come from a database sequence that hands out blocks of BLOCK_SIZE, so each instance
+// only hits the database once per block. Numbers are unique across instances but not gap-free:
+// a restart abandons the rest of its block, and instances interleave their blocks.
+@Component
+@RequiredArgsConstructor
+public class SequenceInvoiceNumberGenerator implements InvoiceNumberGenerator {
+
+    private static final String SEQUENCE = "invoice_number_seq";
+
+    // Part of the numbering scheme: the sequence value v reserves (v - BLOCK_SIZE, v]
+    private static final int BLOCK_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next = 1;
+    private long blockEnd = 0;
+    private String nextValSql;
+
+    @Value("${billflow.invoice-number.prefix:INV}")
+    private String prefix;
+
+    // Month the financial year starts in, April for the Indian financial year
+    @Value("${billflow.invoice-number.financial-year-start-month:4}")
+    private int financialYearStartMonth;
+
+    // The sequence itself is created by the V6 migration
+    @PostConstruct
+    void resolveNextValSql() {
+        nextValSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+            .getSequenceSupport().getSequenceNextValString(SEQUENCE);
+    }
+
+    @Override
+    public String nextInvoiceNumber(LocalDateTime invoiceDate) {
+        long number;
+        lock.lock();
+        try {
+            if (next > blockEnd) {
+                Long blockHigh = jdbcTemplate.queryForObject(nextValSql, Long.class);
+                if (blockHigh == null) {
+                    throw new RuntimeException("Could not allocate invoice numbers from " + SEQUENCE);
+                }
+                next = blockHigh - BLOCK_SIZE + 1;
+                blockEnd = blockHigh;
+            }
+            number = next++;
+        } finally {
+            lock.unlock();
+        }
+        return String.format("%s-%s-%06d", prefix, financialYear(invoiceDate != null ? invoiceDate : LocalDateTime.now()), number);
+    }
+
+    // e.g. "2026-27" for any date from April 2026 to March 2027
+    private String financialYear(LocalDateTime date) {
+        int startYear = date.getMonthValue() >= financialYearStartMonth ? date.getYear() : date.getYear() - 1;
+        return startYear + "-" + String.format("%02d", (startYear + 1) % 100);
+    }
+}
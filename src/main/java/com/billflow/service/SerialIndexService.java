@@ -0,0 +1,275 @@
+package com.billflow.service;
+
+import com.billflow.repository.InventorySerialRepository;
+import com.billflow.repository.InvoiceItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory trigram index over every battery serial number, in stock or sold, so contains-style
+// lookups probe a posting list instead of scanning every product and invoice item
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SerialIndexService {
+
+    private static final int GRAM = 3;
+
+    private final InventorySerialRepository inventorySerialRepository;
+    private final InvoiceItemRepository invoiceItemRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, SerialMatch> entries = new TreeMap<>();
+    private final Map<String, NavigableSet<String>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> keysByProduct = new HashMap<>();
+
+    // Products changed while a rebuild loads its snapshot, null when no rebuild is running
+    private Set<Long> changedDuringRebuild;
+
+    // Every load takes the next number before it reads, so a later number always saw at least as much. A load is
+    // applied only to products no later load has been applied to, and never under an older full snapshot
+    private final AtomicLong loadSequence = new AtomicLong();
+    private final Map<Long, Long> appliedLoads = new HashMap<>();
+    private long rebuildLoad;
+
+    public record SerialMatch(String serialNumber, Long productId, Long invoiceItemId) {
+        public boolean isSold() {
+            return invoiceItemId != null;
+        }
+    }
+
+    public record SerialsChangedEvent(Set<Long> productIds) {
+    }
+
+    // Serials containing the query (case-insensitive) in serial order, starting after the cursor serial
+    public List<SerialMatch> search(String query, String cursor, int limit) {
+        String needle = query.toLowerCase();
+        String after = cursor != null ? key(cursor) : null;
+
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM) {
+                List<SerialMatch> matches = new ArrayList<>();
+                Collection<SerialMatch> ordered = after != null ? entries.tailMap(after, false).values() : entries.values();
+                for (SerialMatch match : ordered) {
+                    if (match.serialNumber().toLowerCase().contains(needle)) {
+                        matches.add(match);
+                        if (matches.size() == limit) {
+                            break;
+                        }
+                    }
+                }
+                return matches;
+            }
+
+            List<NavigableSet<String>> lists = new ArrayList<>();
+            for (String gram : grams(needle)) {
+                NavigableSet<String> posting = postings.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                lists.add(posting);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            // Posting lists are in serial order, so walking the rarest one from the cursor can stop at the limit
+            List<SerialMatch> matches = new ArrayList<>();
+            NavigableSet<String> rarest = lists.get(0);
+            for (String candidate : after != null ? rarest.tailSet(after, false) : rarest) {
+                if (inAll(candidate, lists) && entries.get(candidate).serialNumber().toLowerCase().contains(needle)) {
+                    matches.add(entries.get(candidate));
+                    if (matches.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${billflow.serial-index.rebuild-interval-ms:600000}",
+               fixedDelayString = "${billflow.serial-index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long sequence = loadSequence.incrementAndGet();
+        List<SerialMatch> loaded;
+        try {
+            loaded = load(null);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        Set<Long> changed;
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+            keysByProduct.clear();
+            appliedLoads.clear();
+            rebuildLoad = sequence;
+            loaded.forEach(this::put);
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // The snapshot replaced changes applied while it loaded and may predate them, so read those products again
+        if (!changed.isEmpty()) {
+            replace(changed);
+        }
+        log.info("Indexed {} battery serials in {} ms", loaded.size(), System.currentTimeMillis() - started);
+    }
+
+    // Re-reads only the serials of the products touched by a committed invoice or product change
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSerialsChanged(SerialsChangedEvent event) {
+        if (event.productIds().isEmpty()) {
+            return;
+        }
+        replace(event.productIds());
+    }
+
+    private void replace(Set<Long> productIds) {
+        long sequence = loadSequence.incrementAndGet();
+        List<SerialMatch> loaded = load(productIds);
+
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(productIds);
+            }
+            // Skips products a load that started later has already applied, so an older read never wins
+            Set<Long> current = new HashSet<>();
+            for (Long productId : productIds) {
+                if (sequence > rebuildLoad && sequence > appliedLoads.getOrDefault(productId, 0L)) {
+                    current.add(productId);
+                    appliedLoads.put(productId, sequence);
+                }
+            }
+            for (Long productId : current) {
+                Set<String> keys = keysByProduct.remove(productId);
+                if (keys != null) {
+                    keys.forEach(this::remove);
+                }
+            }
+            for (SerialMatch match : loaded) {
+                if (current.contains(match.productId())) {
+                    put(match);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<SerialMatch> load(Set<Long> productIds) {
+        List<Object[]> inStock = productIds == null
+            ? inventorySerialRepository.findAllInStockSerialNumbers()
+            : inventorySerialRepository.findInStockSerialNumbersByProductIds(productIds);
+        List<Object[]> sold = productIds == null
+            ? invoiceItemRepository.findAllSerialNumbers()
+            : invoiceItemRepository.findSerialNumbersByProductIds(productIds);
+
+        List<SerialMatch> matches = new ArrayList<>(inStock.size() + sold.size());
+        for (Object[] row : inStock) {
+            matches.add(new SerialMatch((String) row[1], (Long) row[0], null));
+        }
+        for (Object[] row : sold) {
+            matches.add(new SerialMatch((String) row[2], (Long) row[1], (Long) row[0]));
+        }
+        return matches;
+    }
+
+    // In-stock entries win over sold ones for the same serial; among sold entries the first one wins
+    private void put(SerialMatch match) {
+        String key = key(match.serialNumber());
+        SerialMatch existing = entries.get(key);
+        if (existing != null && (!existing.isSold() || match.isSold())) {
+            return;
+        }
+        if (existing != null) {
+            Set<String> owned = keysByProduct.get(existing.productId());
+            if (owned != null) {
+                owned.remove(key);
+            }
+        }
+        entries.put(key, match);
+        keysByProduct.computeIfAbsent(match.productId(), id -> new HashSet<>()).add(key);
+        for (String gram : grams(match.serialNumber().toLowerCase())) {
+            postings.computeIfAbsent(gram, g -> new TreeSet<>()).add(key);
+        }
+    }
+
+    private void remove(String key) {
+        SerialMatch match = entries.remove(key);
+        if (match == null) {
+            return;
+        }
+        for (String gram : grams(match.serialNumber().toLowerCase())) {
+            Set<String> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(key);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static boolean inAll(String key, List<NavigableSet<String>> lists) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String key(String serialNumber) {
+        return serialNumber.toLowerCase() + '\u0000' + serialNumber;
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -1,10 +1,14 @@
 package com.billflow.service;
 
+import com.billflow.config.CacheConfig;
 import com.billflow.model.Product;
 import com.billflow.model.Supplier;
 import com.billflow.repository.ProductRepository;
 import com.billflow.repository.SupplierRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,13 +21,15 @@ public class SupplierService {
     private final SupplierRepository supplierRepository;
     private final ProductRepository productRepository;
 
+    @Cacheable(CacheConfig.SUPPLIER_LIST)
     public List<Supplier> getAllSuppliers() {
         return supplierRepository.findAll();
     }
 
+    // Cached instances are shared between requests and must not be modified; writes load their own copy
+    @Cacheable(cacheNames = CacheConfig.SUPPLIERS, key = "#id")
     public Supplier getSupplierById(Long id) {
-        return supplierRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Supplier not found with id: " + id));
+        return findSupplier(id);
     }
 
     public List<Supplier> searchSuppliers(String search) {
@@ -33,6 +39,7 @@ public class SupplierService {
         return supplierRepository.searchSuppliers(search.trim());
     }
 
+    @CacheEvict(cacheNames = CacheConfig.SUPPLIER_LIST, allEntries = true)
     @Transactional
     public Supplier createSupplier(Supplier supplier) {
         // Check if supplier with same name already exists
@@ -42,9 +49,15 @@ public class SupplierService {
         return supplierRepository.save(supplier);
     }
 
+    // Products are cached together with their supplier, so those go too
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.SUPPLIERS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.SUPPLIER_LIST, allEntries = true),
+        @CacheEvict(cacheNames = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_CATALOG}, allEntries = true)
+    })
     @Transactional
     public Supplier updateSupplier(Long id, Supplier supplierDetails) {
-        Supplier supplier = getSupplierById(id);
+        Supplier supplier = findSupplier(id);
 
         // Check if name is being changed and if it conflicts
         if (!supplier.getName().equals(supplierDetails.getName()) &&
@@ -63,9 +76,14 @@ public class SupplierService {
         return supplierRepository.save(supplier);
     }
 
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.SUPPLIERS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.SUPPLIER_LIST, allEntries = true),
+        @CacheEvict(cacheNames = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_CATALOG}, allEntries = true)
+    })
     @Transactional
     public void deleteSupplier(Long id) {
-        Supplier supplier = getSupplierById(id);
+        Supplier supplier = findSupplier(id);
         // TODO: Add check for linked products before deletion
         supplierRepository.delete(supplier);
     }
@@ -75,4 +93,9 @@ public class SupplierService {
         List<Product> linkedProducts = productRepository.findBySupplierId(id);
         return linkedProducts.isEmpty();
     }
+
+    private Supplier findSupplier(Long id) {
+        return supplierRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Supplier not found with id: " + id));
+    }
 }
\ No newline at end of file
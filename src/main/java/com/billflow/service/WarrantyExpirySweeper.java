@@ -0,0 +1,73 @@
+package com.billflow.service;
+
+import com.billflow.model.BatterySerial;
+import com.billflow.repository.BatterySerialRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Persists warranty expiry: active warranties whose end date and grace day have passed become "expired", so the
+// status column alone tells current from lapsed warranties
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WarrantyExpirySweeper {
+
+    private static final String LOCK_NAME = "warranty-expiry";
+
+    private final BatterySerialRepository batterySerialRepository;
+    private final JobLockService jobLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${billflow.warranty-expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${billflow.warranty-expiry.lock-lease:PT30M}")
+    private Duration lockLease;
+
+    @Scheduled(cron = "${billflow.warranty-expiry.cron:0 15 * * * *}")
+    public void sweepOnSchedule() {
+        sweep();
+    }
+
+    // One bulk UPDATE per chunk, each in its own short transaction; rerunning only finds what is still left, so a
+    // sweep interrupted halfway is simply finished by the next one. The lease is renewed after every chunk, so a
+    // long sweep keeps the lock, and one that has lost it stops. Returns the number of warranties expired
+    public int sweep() {
+        if (!jobLockService.tryLock(LOCK_NAME, lockLease)) {
+            log.debug("Warranty expiry sweep skipped, another instance holds the lock");
+            return 0;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int transitioned = 0;
+        try {
+            LocalDateTime endedBy = LocalDateTime.now().minusDays(BatterySerial.WARRANTY_GRACE_DAYS);
+            int updated;
+            do {
+                updated = transactionTemplate.execute(status -> batterySerialRepository.expireWarranties(endedBy, chunkSize));
+                transitioned += updated;
+                meterRegistry.counter("billflow.warranty.expiry.transitioned").increment(updated);
+                if (updated == chunkSize && !jobLockService.renew(LOCK_NAME, lockLease)) {
+                    log.warn("Warranty expiry sweep lost its lock after {} warranties, stopping", transitioned);
+                    break;
+                }
+            } while (updated == chunkSize);
+        } finally {
+            jobLockService.unlock(LOCK_NAME);
+            sample.stop(meterRegistry.timer("billflow.warranty.expiry.sweep"));
+        }
+        if (transitioned > 0) {
+            log.info("Warranty expiry sweep moved {} warranties to expired", transitioned);
+        }
+        return transitioned;
+    }
+}
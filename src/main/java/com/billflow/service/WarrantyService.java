@@ -1,14 +1,20 @@
 package com.billflow.service;
 
+import com.billflow.config.MetricsConfig;
 import com.billflow.model.BatterySerial;
 import com.billflow.repository.BatterySerialRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class WarrantyService {
 
@@ -22,16 +28,23 @@ public class WarrantyService {
         return batterySerialRepository.findAll();
     }
 
-    public List<BatterySerial> getActiveWarranties() {
-        return batterySerialRepository.findAll().stream()
-            .filter(BatterySerial::isWarrantyActive)
-            .toList();
+    // Same window as BatterySerial.isWarrantyActive, evaluated by the database against one reference instant
+    public Page<BatterySerial> getActiveWarranties(Pageable pageable) {
+        LocalDateTime asOf = LocalDateTime.now();
+        return batterySerialRepository.findActiveWarranties(
+            asOf.plusDays(BatterySerial.WARRANTY_GRACE_DAYS), asOf.minusDays(BatterySerial.WARRANTY_GRACE_DAYS), pageable);
     }
 
-    public List<BatterySerial> getExpiredWarranties() {
-        return batterySerialRepository.findAll().stream()
-            .filter(bs -> !bs.isWarrantyActive() && "active".equals(bs.getWarrantyStatus()))
-            .toList();
+    public Page<BatterySerial> getExpiredWarranties(Pageable pageable) {
+        LocalDateTime asOf = LocalDateTime.now();
+        return batterySerialRepository.findExpiredWarranties(asOf.minusDays(BatterySerial.WARRANTY_GRACE_DAYS), pageable);
+    }
+
+    // Active warranties that run out within the next days, for customer reminders
+    public Page<BatterySerial> getExpiringWarranties(int days, Pageable pageable) {
+        LocalDateTime asOf = LocalDateTime.now();
+        return batterySerialRepository.findWarrantiesEndingBetween(
+            asOf.minusDays(BatterySerial.WARRANTY_GRACE_DAYS), asOf.plusDays(days), pageable);
     }
 
     public BatterySerial updateWarrantyStatus(String serialNumber, String status) {
@@ -0,0 +1,61 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// One-time copy of the legacy product_serials element collection (and sold serials) into inventory_serials, for
+// databases created before serial stock moved there. Runs once, under Flyway's lock, before the application starts.
+// Rows of products that no longer exist are skipped, and a database whose inventory_serials is already filled
+// (by the startup copy this migration replaces) is left alone
+@Slf4j
+public class V5__Copy_legacy_product_serials extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        if (!legacyTableExists(jdbcTemplate)
+                || jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_serials", Long.class) > 0) {
+            return;
+        }
+
+        Map<String, Long> inStock = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT ps.product_id, ps.serial_number FROM product_serials ps " +
+                "JOIN products p ON p.id = ps.product_id ORDER BY ps.product_id, ps.serial_order",
+            rs -> {
+                inStock.putIfAbsent(rs.getString("serial_number"), rs.getLong("product_id"));
+            });
+        Map<String, Long> sold = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT bs.product_id, bs.serial_number FROM battery_serials bs " +
+                "JOIN products p ON p.id = bs.product_id ORDER BY bs.id",
+            rs -> {
+                String serialNumber = rs.getString("serial_number");
+                if (!inStock.containsKey(serialNumber)) {
+                    sold.putIfAbsent(serialNumber, rs.getLong("product_id"));
+                }
+            });
+        Long orphans = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_serials ps " +
+            "WHERE NOT EXISTS (SELECT 1 FROM products p WHERE p.id = ps.product_id)", Long.class);
+
+        List<Object[]> rows = new ArrayList<>(inStock.size() + sold.size());
+        inStock.forEach((serialNumber, productId) -> rows.add(new Object[] {productId, serialNumber, "in_stock"}));
+        sold.forEach((serialNumber, productId) -> rows.add(new Object[] {productId, serialNumber, "sold"}));
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_serials (id, product_id, serial_number, status) " +
+            "VALUES (nextval('inventory_serials_seq'), ?, ?, ?)", rows);
+        log.info("Copied {} in-stock and {} sold serials into inventory_serials, skipped {} serials of missing products",
+            inStock.size(), sold.size(), orphans);
+    }
+
+    private static boolean legacyTableExists(JdbcTemplate jdbcTemplate) {
+        Integer tables = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.tables WHERE LOWER(table_name) = 'product_serials'", Integer.class);
+        return tables != null && tables > 0;
+    }
+}
@@ -0,0 +1,43 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.Map;
+
+// Tables that moved from IDENTITY to pooled sequences keep their old ids, so each sequence is moved past MAX(id)
+// once, under Flyway's lock and before the application takes its first insert. Replaces the startup runner that
+// did this after the web server was already accepting requests, and on every instance at once
+@Slf4j
+public class V7__Align_id_sequences extends BaseJavaMigration {
+
+    // allocationSize of the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+        "battery_serials", "battery_serials_seq",
+        "invoices", "invoices_seq",
+        "invoice_items", "invoice_items_seq"
+    );
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (maxId == null) {
+                return;
+            }
+            // The pooled optimizer hands out (value - ALLOCATION_SIZE, value]
+            Long next = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+            if (next != null && next - ALLOCATION_SIZE < maxId) {
+                long restartWith = maxId + ALLOCATION_SIZE + 1;
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith);
+                log.info("Restarted {} at {} to clear existing {} ids", sequence, restartWith, table);
+            }
+        });
+    }
+}
@@ -0,0 +1,127 @@
+-- Baseline schema. Every statement is idempotent so the same script creates a fresh database and brings one
+-- that was managed by ddl-auto=update (baselined at version 0) up to date without touching existing data.
+
+create sequence if not exists battery_serials_seq start with 1 increment by 50;
+create sequence if not exists inventory_serials_seq start with 1 increment by 50;
+create sequence if not exists invoice_items_seq start with 1 increment by 50;
+create sequence if not exists invoices_seq start with 1 increment by 50;
+
+create table if not exists suppliers (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    phone varchar(255) not null,
+    email varchar(255),
+    address varchar(500),
+    gst_number varchar(255),
+    payment_terms varchar(255),
+    notes varchar(1000),
+    primary key (id)
+);
+
+create table if not exists clients (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    phone varchar(255) not null,
+    email varchar(255),
+    address varchar(500),
+    primary key (id)
+);
+
+create table if not exists products (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    description varchar(1000),
+    price numeric(10,2) not null,
+    category varchar(255) not null,
+    supplier_id bigint,
+    is_battery boolean not null,
+    warranty_duration_months integer not null,
+    stock integer not null,
+    sold integer,
+    sold_count integer default 0 not null,
+    version bigint default 0 not null,
+    primary key (id),
+    constraint fk_products_supplier foreign key (supplier_id) references suppliers
+);
+
+-- Added after the first ddl-auto=update deployments
+alter table products add column if not exists sold_count integer default 0 not null;
+alter table products add column if not exists version bigint default 0 not null;
+
+create table if not exists invoices (
+    id bigint not null,
+    invoice_number varchar(255) not null unique,
+    client_id bigint not null,
+    date timestamp(6) not null,
+    due_date timestamp(6),
+    tax numeric(5,2) not null,
+    discount numeric(5,2) not null,
+    subtotal numeric(10,2) not null,
+    total numeric(10,2) not null,
+    status varchar(255) not null,
+    notes varchar(2000),
+    primary key (id),
+    constraint fk_invoices_client foreign key (client_id) references clients
+);
+
+create table if not exists invoice_items (
+    id bigint not null,
+    invoice_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    price numeric(10,2) not null,
+    primary key (id),
+    constraint fk_invoice_items_invoice foreign key (invoice_id) references invoices,
+    constraint fk_invoice_items_product foreign key (product_id) references products
+);
+
+create table if not exists invoice_item_serials (
+    invoice_item_id bigint not null,
+    serial_order integer not null,
+    serial_number varchar(255),
+    primary key (serial_order, invoice_item_id),
+    constraint fk_invoice_item_serials_item foreign key (invoice_item_id) references invoice_items
+);
+
+create table if not exists battery_serials (
+    id bigint not null,
+    serial_number varchar(255) not null unique,
+    product_id bigint not null,
+    invoice_item_id bigint,
+    purchase_date timestamp(6) not null,
+    warranty_start_date timestamp(6) not null,
+    warranty_end_date timestamp(6) not null,
+    warranty_status varchar(255) not null,
+    primary key (id),
+    constraint fk_battery_serials_product foreign key (product_id) references products,
+    constraint fk_battery_serials_invoice_item foreign key (invoice_item_id) references invoice_items
+);
+
+create table if not exists inventory_serials (
+    id bigint not null,
+    product_id bigint not null,
+    serial_number varchar(255) not null unique,
+    status varchar(20) not null,
+    primary key (id),
+    constraint fk_inventory_serials_product foreign key (product_id) references products
+);
+
+create index if not exists idx_inventory_serials_product_status on inventory_serials (product_id, status);
+
+create table if not exists invoice_status_totals (
+    status varchar(50) not null,
+    invoice_count bigint not null,
+    total numeric(14,2) not null,
+    primary key (status)
+);
+
+create table if not exists quotes (
+    id bigint generated by default as identity,
+    client_id bigint not null,
+    description varchar(255),
+    total_amount numeric(10,2),
+    status varchar(255) not null,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id)
+);
@@ -0,0 +1,15 @@
+-- Every report filters invoices by date, on its own or together with the status or the client
+create index if not exists idx_invoices_date on invoices (date);
+create index if not exists idx_invoices_status_date on invoices (status, date);
+create index if not exists idx_invoices_client_date on invoices (client_id, date);
+
+-- Product reports and stock lookups join invoice lines by product
+create index if not exists idx_invoice_items_product on invoice_items (product_id);
+
+-- Warranty expiry queries scan by end date
+create index if not exists idx_battery_serials_warranty_end on battery_serials (warranty_end_date);
+
+-- Foreign keys that invoice loading and updates join on; PostgreSQL does not index them by itself
+create index if not exists idx_invoice_items_invoice on invoice_items (invoice_id);
+create index if not exists idx_invoice_item_serials_item on invoice_item_serials (invoice_item_id);
+create index if not exists idx_battery_serials_invoice_item on battery_serials (invoice_item_id);
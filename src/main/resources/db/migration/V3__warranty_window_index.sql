@@ -0,0 +1,2 @@
+-- Active, expired and expiring warranty lists filter on the status and range over the end date
+create index if not exists idx_battery_serials_status_end on battery_serials (warranty_status, warranty_end_date);
@@ -0,0 +1,7 @@
+-- Leases that keep scheduled jobs to one application instance at a time
+create table if not exists job_locks (
+    name varchar(100) not null,
+    locked_until timestamp(6) not null,
+    locked_by varchar(255),
+    primary key (name)
+);
@@ -0,0 +1,3 @@
+-- Invoice numbers, handed out in blocks of 100 by SequenceInvoiceNumberGenerator: the value v reserves (v - 100, v].
+-- Databases where the application created the sequence itself at startup already have it
+create sequence if not exists invoice_number_seq start with 100 increment by 100;
@@ -0,0 +1,57 @@
+-- Optional, PostgreSQL only: range-partitions invoices by month of date so date-bounded reports scan only the
+-- months they ask for and old months can be detached or archived as whole tables. Enabled by adding
+-- classpath:db/partitioning to spring.flyway.locations (with spring.flyway.out-of-order=true when switched on
+-- after later migrations have run) together with billflow.invoices.partitioning.enabled=true.
+--
+-- PostgreSQL requires the partition key in every unique constraint and cannot reference a partitioned table
+-- from a foreign key on id alone, so:
+--   * the primary key becomes (id, date) and invoice_number is unique per date; numbers stay globally unique
+--     through the invoice number sequence and the existence check for caller-supplied numbers
+--   * invoice_items.invoice_id no longer has a foreign key; lines are only written and removed together with
+--     their invoice
+
+alter table invoices rename to invoices_unpartitioned;
+
+create table invoices (like invoices_unpartitioned including defaults) partition by range (date);
+alter table invoices add constraint invoices_partitioned_pkey primary key (id, date);
+alter table invoices add constraint invoices_partitioned_number_key unique (invoice_number, date);
+alter table invoices add constraint fk_invoices_partitioned_client foreign key (client_id) references clients;
+
+-- Catches dates outside the pre-created months so an insert never fails for want of a partition
+create table invoices_default partition of invoices default;
+
+-- Creates the monthly partitions covering months months from from_month; returns how many were new
+create or replace function create_invoice_partitions(from_month date, months integer) returns integer as $$
+declare
+    month_start date;
+    partition_name text;
+    created integer := 0;
+begin
+    for i in 0 .. months - 1 loop
+        month_start := (date_trunc('month', from_month) + make_interval(months => i))::date;
+        partition_name := 'invoices_' || to_char(month_start, 'YYYY_MM');
+        if to_regclass(partition_name) is null then
+            execute format('create table %I partition of invoices for values from (%L) to (%L)',
+                partition_name, month_start, (month_start + interval '1 month')::date);
+            created := created + 1;
+        end if;
+    end loop;
+    return created;
+end;
+$$ language plpgsql;
+
+-- Every month that has invoices, up to three months ahead
+select create_invoice_partitions(first_month,
+    (extract(year from age(date_trunc('month', now()), first_month)) * 12
+        + extract(month from age(date_trunc('month', now()), first_month)))::integer + 4)
+from (select coalesce(date_trunc('month', min(date)), date_trunc('month', now()))::date as first_month
+      from invoices_unpartitioned) bounds;
+
+insert into invoices select * from invoices_unpartitioned;
+
+-- Also drops the foreign key from invoice_items and the old indexes, freeing their names
+drop table invoices_unpartitioned cascade;
+
+create index idx_invoices_date on invoices (date);
+create index idx_invoices_status_date on invoices (status, date);
+create index idx_invoices_client_date on invoices (client_id, date);
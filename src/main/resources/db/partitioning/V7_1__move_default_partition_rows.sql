@@ -0,0 +1,35 @@
+-- Invoices dated beyond the pre-created months land in invoices_default, and PostgreSQL refuses to create a
+-- partition for a month the default partition already holds rows of. Redefines create_invoice_partitions so it
+-- moves such rows into the new partition: detach the default, create the partition, move the month's rows
+-- over, and attach the default again.
+
+create or replace function create_invoice_partitions(from_month date, months integer) returns integer as $$
+declare
+    month_start date;
+    month_end date;
+    partition_name text;
+    created integer := 0;
+begin
+    for i in 0 .. months - 1 loop
+        month_start := (date_trunc('month', from_month) + make_interval(months => i))::date;
+        month_end := (month_start + interval '1 month')::date;
+        partition_name := 'invoices_' || to_char(month_start, 'YYYY_MM');
+        if to_regclass(partition_name) is null then
+            if exists (select 1 from invoices_default where date >= month_start and date < month_end) then
+                alter table invoices detach partition invoices_default;
+                execute format('create table %I partition of invoices for values from (%L) to (%L)',
+                    partition_name, month_start, month_end);
+                execute format('insert into %I select * from invoices_default where date >= %L and date < %L',
+                    partition_name, month_start, month_end);
+                delete from invoices_default where date >= month_start and date < month_end;
+                alter table invoices attach partition invoices_default default;
+            else
+                execute format('create table %I partition of invoices for values from (%L) to (%L)',
+                    partition_name, month_start, month_end);
+            end if;
+            created := created + 1;
+        end if;
+    end loop;
+    return created;
+end;
+$$ language plpgsql;
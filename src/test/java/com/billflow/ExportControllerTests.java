@@ -0,0 +1,156 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.Client;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceService;
+import com.billflow.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A fetch size smaller than the export, so the rows come from several cursor fetches
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:exports",
+		"spring.jpa.show-sql=false",
+		"billflow.export.fetch-size=2"
+})
+@AutoConfigureMockMvc
+class ExportControllerTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+	private static final int INVOICES = 5;
+
+	private static List<String> invoiceNumbers;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@BeforeEach
+	void seedInvoices() {
+		if (invoiceNumbers != null) {
+			return;
+		}
+		Client client = new Client();
+		client.setName("Sharma, \"Ravi\" & Sons");
+		client.setPhone("9500000000");
+		client = clientRepository.save(client);
+
+		Supplier supplier = new Supplier();
+		supplier.setName("Export Supplier");
+		supplier.setPhone("9500000001");
+		Product water = new Product();
+		water.setName("Export Distilled Water");
+		water.setCategory("Accessories");
+		water.setPrice(new BigDecimal("50"));
+		water.setSupplier(supplierRepository.save(supplier));
+		water.setStock(100);
+		water = productService.createProduct(water);
+
+		invoiceNumbers = new ArrayList<>();
+		for (int i = 0; i < INVOICES; i++) {
+			InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+			line.setProductId(water.getId());
+			line.setQuantity(i + 1);
+			line.setPrice(new BigDecimal("50"));
+			InvoiceRequest request = new InvoiceRequest();
+			request.setClientId(client.getId());
+			request.setDate(START.plusDays(i + 1));
+			request.setStatus("pending");
+			request.setNotes(i == 0 ? "Deliver to gate 2\nafter 5pm" : null);
+			request.setItems(List.of(line));
+			invoiceNumbers.add(invoiceService.createInvoice(request).getInvoiceNumber());
+		}
+	}
+
+	@Test
+	void csvExportHasHeaderEscapedCellsAndEveryRow() throws Exception {
+		String csv = export("csv", "text/csv", "invoices.csv");
+
+		// Records end in CRLF; the line break inside the quoted notes is a bare LF
+		List<String> records = Arrays.asList(csv.split("\r\n"));
+		assertThat(records.get(0)).isEqualTo(
+				"id,invoiceNumber,date,dueDate,clientId,clientName,clientPhone,status,subtotal,tax,discount,total,notes");
+		assertThat(records).hasSize(INVOICES + 1);
+		assertThat(records.get(1))
+				.contains("," + invoiceNumbers.get(0) + ",2026-01-02T00:00:00,")
+				.contains(",\"Sharma, \"\"Ravi\"\" & Sons\",9500000000,pending,")
+				.endsWith(",\"Deliver to gate 2\nafter 5pm\"");
+		for (int i = 0; i < INVOICES; i++) {
+			assertThat(records.get(i + 1)).contains("," + invoiceNumbers.get(i) + ",");
+		}
+	}
+
+	@Test
+	void ndjsonExportHasOneObjectPerRow() throws Exception {
+		String ndjson = export("ndjson", "application/x-ndjson", "invoices.ndjson");
+
+		String[] lines = ndjson.split("\n");
+		assertThat(lines).hasSize(INVOICES);
+		List<String> exported = new ArrayList<>();
+		for (String line : lines) {
+			exported.add(objectMapper.readTree(line).get("invoiceNumber").asText());
+		}
+		assertThat(exported).containsExactlyElementsOf(invoiceNumbers);
+
+		JsonNode first = objectMapper.readTree(lines[0]);
+		assertThat(first.get("clientName").asText()).isEqualTo("Sharma, \"Ravi\" & Sons");
+		assertThat(first.get("notes").asText()).isEqualTo("Deliver to gate 2\nafter 5pm");
+		assertThat(first.get("total").decimalValue()).isEqualByComparingTo("50");
+		assertThat(objectMapper.readTree(lines[1]).get("notes").isNull()).isTrue();
+	}
+
+	private String export(String format, String contentType, String filename) throws Exception {
+		MvcResult started = mockMvc.perform(get("/api/exports/invoices")
+						.param("format", format)
+						.param("startDate", START.toString())
+						.param("endDate", START.plusMonths(1).toString()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(contentType))
+				.andExpect(header().string("Content-Disposition", "attachment; filename=\"" + filename + "\""))
+				.andReturn().getResponse().getContentAsString();
+	}
+
+}
@@ -0,0 +1,196 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.Client;
+import com.billflow.model.Invoice;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceService;
+import com.billflow.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureMockMvc
+class InvoiceFetchPlanTests {
+
+	private static Long invoiceId;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@BeforeEach
+	void seedInvoices() {
+		if (invoiceId != null) {
+			return;
+		}
+		Client client = new Client();
+		client.setName("Fetch Plan Client");
+		client.setPhone("9000000000");
+		client = clientRepository.save(client);
+
+		Supplier supplier = new Supplier();
+		supplier.setName("Fetch Plan Supplier");
+		supplier.setPhone("9000000001");
+		supplier = supplierRepository.save(supplier);
+
+		List<String> serials = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			serials.add("FP-" + i);
+		}
+		Product battery = new Product();
+		battery.setName("Fetch Plan Battery");
+		battery.setCategory("Car Battery");
+		battery.setPrice(new BigDecimal("5000"));
+		battery.setSupplier(supplier);
+		battery.setIsBattery(true);
+		battery.setSerialNumbers(new ArrayList<>(serials));
+		battery = productService.createProduct(battery);
+
+		Product water = new Product();
+		water.setName("Fetch Plan Distilled Water");
+		water.setCategory("Accessories");
+		water.setPrice(new BigDecimal("50"));
+		water.setSupplier(supplier);
+		water.setStock(100);
+		water = productService.createProduct(water);
+
+		for (int i = 0; i < 5; i++) {
+			InvoiceRequest.InvoiceItemRequest batteryLine = new InvoiceRequest.InvoiceItemRequest();
+			batteryLine.setProductId(battery.getId());
+			batteryLine.setQuantity(2);
+			batteryLine.setPrice(new BigDecimal("5000"));
+			batteryLine.setSerialNumbers(serials.subList(i * 2, i * 2 + 2));
+
+			InvoiceRequest.InvoiceItemRequest waterLine = new InvoiceRequest.InvoiceItemRequest();
+			waterLine.setProductId(water.getId());
+			waterLine.setQuantity(3);
+			waterLine.setPrice(new BigDecimal("50"));
+
+			InvoiceRequest request = new InvoiceRequest();
+			request.setClientId(client.getId());
+			request.setDate(LocalDateTime.now().minusDays(i));
+			request.setItems(List.of(batteryLine, waterLine));
+			Invoice invoice = invoiceService.createInvoice(request);
+			invoiceId = invoice.getId();
+		}
+	}
+
+	@Test
+	void invoiceListLoadsGraphInOneQueryPlusSerialBatch() throws Exception {
+		assertThat(statementsFor(get("/api/invoices"))).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void invoiceDetailLoadsGraphInOneQueryPlusSerialBatch() throws Exception {
+		assertThat(statementsFor(get("/api/invoices/" + invoiceId))).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void invoiceStatusUpdateLoadsOnlyWhatItReturns() throws Exception {
+		// select, invoice update, two running-total updates, serial batch
+		assertThat(statementsFor(patch("/api/invoices/" + invoiceId + "/status").param("status", "paid")))
+				.isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void invoiceStatsReadRunningTotalsOnly() throws Exception {
+		assertThat(statementsFor(get("/api/invoices/stats"))).isEqualTo(1);
+	}
+
+	@Test
+	void invoiceSummariesUseSingleProjectionQuery() throws Exception {
+		assertThat(statementsFor(get("/api/invoices/summaries"))).isEqualTo(1);
+	}
+
+	@Test
+	void productCatalogDoesNotQueryPerProduct() throws Exception {
+		assertThat(statementsFor(get("/api/products"))).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void inventoryReportDoesNotQueryPerProduct() throws Exception {
+		assertThat(statementsFor(get("/api/reports/inventory-status"))).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void inventoryReportReusesCachedProductQueryWhenWarm() throws Exception {
+		statementsFor(get("/api/reports/inventory-status"));
+		// sold quantities only; products and suppliers come from the query and second-level caches
+		assertThat(statementsFor(get("/api/reports/inventory-status"))).isEqualTo(1);
+	}
+
+	@Test
+	void serialReportTakesProductsFromSecondLevelCacheWhenWarm() throws Exception {
+		statementsFor(get("/api/reports/serial/FP-0"));
+		// sale details only
+		assertThat(statementsFor(get("/api/reports/serial/FP-0"))).isEqualTo(1);
+	}
+
+	@Test
+	void warrantyLookupBySerialLoadsOneSale() throws Exception {
+		// serial, then its invoice item and the item's serials as the response is written
+		mockMvc.perform(get("/api/warranty/serial/FP-0"))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.maxStatements(3));
+	}
+
+	@Test
+	void dashboardReportsRunNoStatementPerRow() throws Exception {
+		String period = "?startDate=" + LocalDateTime.now().minusDays(30).withNano(0)
+				+ "&endDate=" + LocalDateTime.now().plusDays(1).withNano(0);
+		for (String uri : List.of("/api/reports/sales-summary" + period, "/api/reports/financial-summary" + period,
+				"/api/reports/product-performance" + period, "/api/warranty/expiring?days=30", "/api/warranty")) {
+			mockMvc.perform(get(uri))
+					.andExpect(status().isOk())
+					.andExpect(QueryBudget.maxRepeats(1));
+		}
+	}
+
+	private long statementsFor(RequestBuilder request) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+		return statistics.getPrepareStatementCount();
+	}
+
+}
@@ -0,0 +1,230 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceImportReport;
+import com.billflow.dto.InvoiceImportReport.RecordError;
+import com.billflow.model.Client;
+import com.billflow.model.Invoice;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.InvoiceRepository;
+import com.billflow.repository.ProductRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceImportService;
+import com.billflow.service.ProductService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Chunks of two records, so a handful of records spans several chunk transactions
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:imports",
+		"spring.jpa.show-sql=false",
+		"billflow.import.chunk-size=2"
+})
+class InvoiceImportServiceTests {
+
+	@Autowired
+	private InvoiceImportService invoiceImportService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InvoiceRepository invoiceRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Client client;
+
+	private Product water;
+
+	@BeforeEach
+	void seedCatalog() {
+		client = new Client();
+		client.setName("Import Client");
+		client.setPhone("9400000000");
+		client = clientRepository.save(client);
+
+		Supplier supplier = new Supplier();
+		supplier.setName("Import Supplier");
+		supplier.setPhone("9400000001");
+		supplier = supplierRepository.save(supplier);
+
+		water = new Product();
+		water.setName("Import Distilled Water");
+		water.setCategory("Accessories");
+		water.setPrice(new BigDecimal("50"));
+		water.setSupplier(supplier);
+		water.setStock(100);
+		water = productService.createProduct(water);
+	}
+
+	@Test
+	void csvFieldsMayHoldQuotedCommasQuotesAndLineBreaks() throws IOException {
+		String csv = """
+				invoiceNumber,clientId,date,productId,quantity,price,notes
+				IMP-CSV-1,%1$d,2026-02-01,%2$d,1,50,"Paid, in ""cash""
+				at the counter"
+				IMP-CSV-1,%1$d,2026-02-01,%2$d,2,45,"Paid, in ""cash""
+				at the counter"
+				IMP-CSV-2,%1$d,2026-02-02T10:15:00,%2$d,1,50,plain
+				""".formatted(client.getId(), water.getId());
+
+		InvoiceImportReport report = invoiceImportService.importCsv(stream(csv));
+
+		assertThat(report.getErrors()).isEmpty();
+		assertThat(report.getImported()).isEqualTo(2);
+		Invoice first = invoiceRepository.findByInvoiceNumber("IMP-CSV-1").orElseThrow();
+		assertThat(first.getNotes()).isEqualTo("Paid, in \"cash\"\nat the counter");
+		assertThat(first.getTotal()).isEqualByComparingTo("140");
+		assertThat(invoiceRepository.findByInvoiceNumber("IMP-CSV-2").orElseThrow().getNotes()).isEqualTo("plain");
+		assertThat(stock(water)).isEqualTo(96);
+	}
+
+	@Test
+	void invalidRecordIsRejectedAndTheRestOfItsChunkImported() throws IOException {
+		String ndjson = String.join("\n",
+				invoice("IMP-VAL-1", client.getId(), water.getId(), 1),
+				invoice("IMP-VAL-2", 999_999L, water.getId(), 1),
+				invoice("IMP-VAL-3", client.getId(), water.getId(), 2));
+
+		InvoiceImportReport report = invoiceImportService.importNdjson(stream(ndjson));
+
+		assertThat(report.getReceived()).isEqualTo(3);
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getFailed()).isEqualTo(1);
+		assertThat(report.getErrors()).singleElement().satisfies(error -> {
+			assertThat(error.getLine()).isEqualTo(2);
+			assertThat(error.getInvoiceNumber()).isEqualTo("IMP-VAL-2");
+			assertThat(error.getError()).contains("Client not found");
+		});
+		assertThat(invoiceRepository.findByInvoiceNumber("IMP-VAL-1")).isPresent();
+		assertThat(invoiceRepository.findByInvoiceNumber("IMP-VAL-3")).isPresent();
+		assertThat(stock(water)).isEqualTo(97);
+	}
+
+	@Test
+	void failedWriteRollsBackItsChunkAndReportsEveryRecordInIt() throws IOException {
+		String tooLong = "x".repeat(2001);
+		String ndjson = String.join("\n",
+				invoice("IMP-RB-1", client.getId(), water.getId(), 1),
+				invoice("IMP-RB-2", client.getId(), water.getId(), 1),
+				invoice("IMP-RB-3", client.getId(), water.getId(), 5),
+				invoice("IMP-RB-4", client.getId(), water.getId(), 1).replace("\"notes\":null", "\"notes\":\"" + tooLong + "\""));
+
+		InvoiceImportReport report = invoiceImportService.importNdjson(stream(ndjson));
+
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getFailed()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(RecordError::getInvoiceNumber).containsExactly("IMP-RB-3", "IMP-RB-4");
+		assertThat(report.getErrors()).allSatisfy(error -> assertThat(error.getError()).startsWith("Chunk rolled back"));
+		assertThat(invoiceRepository.findByInvoiceNumber("IMP-RB-2")).isPresent();
+		assertThat(invoiceRepository.findByInvoiceNumber("IMP-RB-3")).isEmpty();
+		// Stock taken by the rolled back chunk is back
+		assertThat(stock(water)).isEqualTo(98);
+	}
+
+	@Test
+	void duplicateInvoiceNumbersAndSerialsAreRejected() throws IOException {
+		Product battery = battery("IMP-DUP-S1", "IMP-DUP-S2");
+		String ndjson = String.join("\n",
+				batteryInvoice("IMP-DUP-1", battery.getId(), "IMP-DUP-S1"),
+				// Same chunk: the number and the serial were taken by the record above
+				batteryInvoice("IMP-DUP-1", battery.getId(), "IMP-DUP-S2"),
+				batteryInvoice("IMP-DUP-2", battery.getId(), "IMP-DUP-S1"),
+				// Next chunk: the first invoice is already committed
+				batteryInvoice("IMP-DUP-1", battery.getId(), "IMP-DUP-S2"),
+				batteryInvoice("IMP-DUP-3", battery.getId(), "IMP-DUP-S2"));
+
+		InvoiceImportReport report = invoiceImportService.importNdjson(stream(ndjson));
+
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(RecordError::getLine, RecordError::getError).containsExactly(
+				tuple(2L, "Invoice number already exists: IMP-DUP-1"),
+				tuple(3L, "Serial number already sold: IMP-DUP-S1"),
+				tuple(4L, "Invoice number already exists: IMP-DUP-1"));
+		assertThat(invoiceRepository.findByInvoiceNumber("IMP-DUP-3")).isPresent();
+		assertThat(stock(battery)).isZero();
+	}
+
+	@Test
+	void importUnderOpenInViewLeavesNothingManaged() throws IOException {
+		List<String> records = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			records.add(invoice("IMP-OSIV-" + i, client.getId(), water.getId(), 1));
+		}
+		// Bound the way OpenEntityManagerInViewInterceptor binds it for a web request
+		EntityManager requestEntityManager = entityManagerFactory.createEntityManager();
+		TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(requestEntityManager));
+		try {
+			InvoiceImportReport report = invoiceImportService.importNdjson(stream(String.join("\n", records)));
+
+			assertThat(report.getImported()).isEqualTo(6);
+			assertThat(requestEntityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+		} finally {
+			TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+			requestEntityManager.close();
+		}
+	}
+
+	private Product battery(String... serialNumbers) {
+		Product battery = new Product();
+		battery.setName("Import Battery");
+		battery.setCategory("Car Battery");
+		battery.setPrice(new BigDecimal("5000"));
+		battery.setSupplier(water.getSupplier());
+		battery.setIsBattery(true);
+		battery.setSerialNumbers(new ArrayList<>(List.of(serialNumbers)));
+		return productService.createProduct(battery);
+	}
+
+	private int stock(Product product) {
+		return productRepository.findById(product.getId()).orElseThrow().getStock();
+	}
+
+	private static String invoice(String invoiceNumber, Long clientId, Long productId, int quantity) {
+		return """
+				{"invoiceNumber":"%s","clientId":%d,"date":"2026-02-03T09:00:00","notes":null,\
+				"items":[{"productId":%d,"quantity":%d,"price":50}]}""".formatted(invoiceNumber, clientId, productId, quantity);
+	}
+
+	private String batteryInvoice(String invoiceNumber, Long productId, String serialNumber) {
+		return """
+				{"invoiceNumber":"%s","clientId":%d,"date":"2026-02-03T09:00:00",\
+				"items":[{"productId":%d,"quantity":1,"price":5000,"serialNumbers":["%s"]}]}"""
+				.formatted(invoiceNumber, client.getId(), productId, serialNumber);
+	}
+
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
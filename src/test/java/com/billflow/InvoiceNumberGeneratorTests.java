@@ -0,0 +1,85 @@
+package com.billflow;
+
+import com.billflow.service.InvoiceNumberGenerator;
+import com.billflow.service.SequenceInvoiceNumberGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class InvoiceNumberGeneratorTests {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2026, 5, 1, 10, 0);
+
+	@Autowired
+	private InvoiceNumberGenerator generator;
+
+	@Autowired
+	private AutowireCapableBeanFactory beanFactory;
+
+	@Test
+	void numbersAreConsecutiveWithinABlockAndUniqueAcrossBlocks() {
+		List<Long> numbers = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			String invoiceNumber = generator.nextInvoiceNumber(DATE);
+			assertThat(invoiceNumber).startsWith("INV-2026-27-");
+			numbers.add(Long.parseLong(invoiceNumber.substring(invoiceNumber.lastIndexOf('-') + 1)));
+		}
+
+		assertThat(numbers).doesNotHaveDuplicates().isSorted();
+		// 250 numbers span at most four blocks of 100, so there are at most three jumps between blocks
+		long jumps = 0;
+		for (int i = 1; i < numbers.size(); i++) {
+			if (numbers.get(i) != numbers.get(i - 1) + 1) {
+				jumps++;
+			}
+		}
+		assertThat(jumps).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void concurrentCallersOnTwoInstancesNeverShareANumber() throws Exception {
+		// A second generator stands in for another application instance drawing blocks from the same sequence
+		InvoiceNumberGenerator otherInstance = beanFactory.createBean(SequenceInvoiceNumberGenerator.class);
+		int threads = 8;
+		int perThread = 150;
+		Set<String> numbers = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				InvoiceNumberGenerator instance = t % 2 == 0 ? generator : otherInstance;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < perThread; i++) {
+						numbers.add(instance.nextInvoiceNumber(DATE));
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(numbers).hasSize(threads * perThread);
+	}
+
+}
@@ -0,0 +1,290 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.dto.InvoiceSummaryDTO;
+import com.billflow.dto.InvoiceSummaryPage;
+import com.billflow.model.BatterySerial;
+import com.billflow.model.Client;
+import com.billflow.model.InventorySerial;
+import com.billflow.model.Invoice;
+import com.billflow.model.InvoiceItem;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.BatterySerialRepository;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.InventorySerialRepository;
+import com.billflow.repository.ProductRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceService;
+import com.billflow.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class InvoiceServiceTests {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2026, 4, 2, 11, 0);
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InventorySerialRepository inventorySerialRepository;
+
+	@Autowired
+	private BatterySerialRepository batterySerialRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void summaryCursorWalksEqualDatesWithoutDuplicatesOrGaps() {
+		Client client = client("Summary Paging Client");
+		LocalDateTime day = LocalDateTime.of(2026, 3, 10, 12, 0);
+		List<Long> created = new ArrayList<>();
+		for (LocalDateTime date : List.of(day, day, day, day.minusDays(1), day.minusDays(1), day.minusDays(1), day.minusDays(2))) {
+			created.add(invoiceService.createInvoice(invoice(client, date, "Pending")).getId());
+		}
+
+		List<InvoiceSummaryDTO> walked = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			InvoiceSummaryPage page = invoiceService.getInvoiceSummaries(null, client.getId(), null, null, cursor, 2);
+			walked.addAll(page.getContent());
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(4);
+		assertThat(walked).extracting(InvoiceSummaryDTO::getId).doesNotHaveDuplicates()
+				.containsExactlyInAnyOrderElementsOf(created);
+		assertThat(walked).isSortedAccordingTo(Comparator.comparing(InvoiceSummaryDTO::getDate)
+				.thenComparing(InvoiceSummaryDTO::getId).reversed());
+	}
+
+	@Test
+	void summaryStatusFilterIgnoresCase() {
+		Client client = client("Summary Status Client");
+		LocalDateTime date = LocalDateTime.of(2026, 3, 11, 9, 30);
+		invoiceService.createInvoice(invoice(client, date, "Paid"));
+		invoiceService.createInvoice(invoice(client, date, "paid"));
+		invoiceService.createInvoice(invoice(client, date, "Pending"));
+
+		assertThat(invoiceService.getInvoiceSummaries("paid", client.getId(), null, null, null, 10).getContent())
+				.hasSize(2);
+		assertThat(invoiceService.getInvoiceSummaries("PAID", client.getId(), null, null, null, 10).getContent())
+				.hasSize(2);
+	}
+
+	@Test
+	void headerOnlyUpdateLeavesLinesSerialsAndStockAlone() {
+		Client client = client("Header Update Client");
+		Product battery = battery("HDR");
+		Product water = water();
+		Invoice invoice = invoiceService.createInvoice(invoice(client, DATE, "Pending",
+				batteryLine(battery, "HDR-1", "HDR-2"), waterLine(water, 3)));
+
+		InvoiceRequest header = invoice(client, DATE, "Paid");
+		header.setItems(null);
+		header.setNotes("Paid in cash");
+		invoiceService.updateInvoice(invoice.getId(), header);
+
+		Invoice updated = invoiceService.getInvoiceById(invoice.getId());
+		assertThat(updated.getStatus()).isEqualTo("Paid");
+		assertThat(updated.getNotes()).isEqualTo("Paid in cash");
+		assertThat(updated.getItems()).extracting(InvoiceItem::getQuantity).containsExactlyInAnyOrder(2, 3);
+		assertThat(stock(battery)).isEqualTo(2);
+		assertThat(stock(water)).isEqualTo(97);
+		assertThat(batterySerialRepository.findBySerialNumbers(List.of("HDR-1", "HDR-2"))).hasSize(2);
+	}
+
+	@Test
+	void quantityChangesMoveStockByTheDifference() {
+		Client client = client("Quantity Update Client");
+		Product water = water();
+		Invoice invoice = invoiceService.createInvoice(invoice(client, DATE, "Pending", waterLine(water, 3)));
+
+		invoiceService.updateInvoice(invoice.getId(), invoice(client, DATE, "Pending", waterLine(water, 5)));
+		assertThat(stock(water)).isEqualTo(95);
+
+		invoiceService.updateInvoice(invoice.getId(), invoice(client, DATE, "Pending", waterLine(water, 2)));
+		assertThat(stock(water)).isEqualTo(98);
+		assertThat(invoiceService.getInvoiceById(invoice.getId()).getItems())
+				.singleElement().extracting(InvoiceItem::getQuantity).isEqualTo(2);
+	}
+
+	@Test
+	void serialMovedBetweenLinesStaysSoldOnce() {
+		Client client = client("Serial Move Client");
+		Product battery = battery("MOV");
+		Invoice invoice = invoiceService.createInvoice(invoice(client, DATE, "Pending",
+				batteryLine(battery, "MOV-1", "MOV-2"), batteryLine(battery, "MOV-3")));
+
+		invoiceService.updateInvoice(invoice.getId(), invoice(client, DATE, "Pending",
+				batteryLine(battery, "MOV-1"), batteryLine(battery, "MOV-3", "MOV-2")));
+
+		InvoiceItem target = transactionTemplate.execute(status -> {
+			InvoiceItem item = invoiceService.getInvoiceById(invoice.getId()).getItems().stream()
+					.filter(line -> line.getSerialNumbers().contains("MOV-3"))
+					.findFirst().orElseThrow();
+			assertThat(item.getSerialNumbers()).containsExactly("MOV-3", "MOV-2");
+			return item;
+		});
+		assertThat(stock(battery)).isEqualTo(1);
+		assertThat(status("MOV-2")).isEqualTo(InventorySerial.SOLD);
+		List<BatterySerial> warranties = batterySerialRepository.findBySerialNumbers(List.of("MOV-2"));
+		assertThat(warranties).singleElement()
+				.extracting(warranty -> warranty.getInvoiceItem().getId()).isEqualTo(target.getId());
+	}
+
+	@Test
+	void removedLinesGiveBackStockAndSerials() {
+		Client client = client("Line Removal Client");
+		Product battery = battery("REM");
+		Product water = water();
+		Invoice invoice = invoiceService.createInvoice(invoice(client, DATE, "Pending",
+				batteryLine(battery, "REM-1", "REM-2"), waterLine(water, 4)));
+		assertThat(stock(battery)).isEqualTo(2);
+
+		invoiceService.updateInvoice(invoice.getId(), invoice(client, DATE, "Pending", waterLine(water, 4)));
+
+		assertThat(stock(battery)).isEqualTo(4);
+		assertThat(status("REM-1")).isEqualTo(InventorySerial.IN_STOCK);
+		assertThat(status("REM-2")).isEqualTo(InventorySerial.IN_STOCK);
+		assertThat(batterySerialRepository.findBySerialNumbers(List.of("REM-1", "REM-2"))).isEmpty();
+
+		invoiceService.updateInvoice(invoice.getId(), invoice(client, DATE, "Pending", batteryLine(battery, "REM-2")));
+
+		assertThat(stock(water)).isEqualTo(100);
+		assertThat(stock(battery)).isEqualTo(3);
+		assertThat(status("REM-2")).isEqualTo(InventorySerial.SOLD);
+	}
+
+	@Test
+	void identicalNewLinesAreEachSold() {
+		Client client = client("Identical New Lines Client");
+		Product battery = battery("IDN");
+		Product water = water();
+		Invoice invoice = invoiceService.createInvoice(invoice(client, DATE, "Pending", batteryLine(battery, "IDN-1")));
+
+		invoiceService.updateInvoice(invoice.getId(), invoice(client, DATE, "Pending",
+				batteryLine(battery, "IDN-1"), waterLine(water, 2), waterLine(water, 2)));
+
+		Invoice updated = invoiceService.getInvoiceById(invoice.getId());
+		assertThat(updated.getItems()).extracting(InvoiceItem::getQuantity).containsExactlyInAnyOrder(1, 2, 2);
+		assertThat(updated.getSubtotal()).isEqualByComparingTo("5200");
+		assertThat(stock(water)).isEqualTo(96);
+	}
+
+	@Test
+	void identicalLinesReplacingDifferentLinesUpdateBoth() {
+		Client client = client("Identical Replacing Lines Client");
+		Product water = water();
+		Invoice invoice = invoiceService.createInvoice(invoice(client, DATE, "Pending",
+				waterLine(water, 3), waterLine(water, 5)));
+		assertThat(stock(water)).isEqualTo(92);
+
+		invoiceService.updateInvoice(invoice.getId(), invoice(client, DATE, "Pending",
+				waterLine(water, 4), waterLine(water, 4)));
+
+		Invoice updated = invoiceService.getInvoiceById(invoice.getId());
+		assertThat(updated.getItems()).extracting(InvoiceItem::getQuantity).containsExactly(4, 4);
+		assertThat(updated.getSubtotal()).isEqualByComparingTo("400");
+		assertThat(stock(water)).isEqualTo(92);
+	}
+
+	private Client client(String name) {
+		Client client = new Client();
+		client.setName(name);
+		client.setPhone("9300000000");
+		return clientRepository.save(client);
+	}
+
+	private Product battery(String serialPrefix) {
+		Product battery = new Product();
+		battery.setName(serialPrefix + " Battery");
+		battery.setCategory("Car Battery");
+		battery.setPrice(new BigDecimal("5000"));
+		battery.setSupplier(supplier());
+		battery.setIsBattery(true);
+		battery.setSerialNumbers(new ArrayList<>(List.of(
+				serialPrefix + "-1", serialPrefix + "-2", serialPrefix + "-3", serialPrefix + "-4")));
+		return productService.createProduct(battery);
+	}
+
+	private Product water() {
+		Product water = new Product();
+		water.setName("Distilled Water");
+		water.setCategory("Accessories");
+		water.setPrice(new BigDecimal("50"));
+		water.setSupplier(supplier());
+		water.setStock(100);
+		return productService.createProduct(water);
+	}
+
+	private Supplier supplier() {
+		Supplier supplier = new Supplier();
+		supplier.setName("Invoice Test Supplier");
+		supplier.setPhone("9300000001");
+		return supplierRepository.save(supplier);
+	}
+
+	private int stock(Product product) {
+		return productRepository.findById(product.getId()).orElseThrow().getStock();
+	}
+
+	private String status(String serialNumber) {
+		return (String) inventorySerialRepository.findStates(List.of(serialNumber)).get(0)[2];
+	}
+
+	private static InvoiceRequest invoice(Client client, LocalDateTime date, String status,
+										  InvoiceRequest.InvoiceItemRequest... items) {
+		InvoiceRequest request = new InvoiceRequest();
+		request.setClientId(client.getId());
+		request.setDate(date);
+		request.setStatus(status);
+		request.setItems(List.of(items));
+		return request;
+	}
+
+	private static InvoiceRequest.InvoiceItemRequest batteryLine(Product battery, String... serialNumbers) {
+		InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+		line.setProductId(battery.getId());
+		line.setQuantity(serialNumbers.length);
+		line.setPrice(battery.getPrice());
+		line.setSerialNumbers(List.of(serialNumbers));
+		return line;
+	}
+
+	private static InvoiceRequest.InvoiceItemRequest waterLine(Product water, int quantity) {
+		InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+		line.setProductId(water.getId());
+		line.setQuantity(quantity);
+		line.setPrice(water.getPrice());
+		return line;
+	}
+
+}
@@ -0,0 +1,192 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.Client;
+import com.billflow.model.InvoiceStatusTotal;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.InvoiceStatusTotalRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceService;
+import com.billflow.service.InvoiceStatsService;
+import com.billflow.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Own database, so reconciling compares only the invoices written here
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:invoice-stats",
+		"spring.jpa.show-sql=false"
+})
+class InvoiceStatsServiceTests {
+
+	private static final int THREADS = 6;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private InvoiceStatsService invoiceStatsService;
+
+	@Autowired
+	private InvoiceStatusTotalRepository statusTotalRepository;
+
+	private Client client;
+
+	private Product water;
+
+	@BeforeEach
+	void setUp() {
+		client = new Client();
+		client.setName("Stats Client");
+		client.setPhone("9800000000");
+		client = clientRepository.save(client);
+
+		Supplier supplier = new Supplier();
+		supplier.setName("Stats Supplier");
+		supplier.setPhone("9800000001");
+		water = new Product();
+		water.setName("Stats Distilled Water");
+		water.setCategory("Accessories");
+		water.setPrice(new BigDecimal("50"));
+		water.setSupplier(supplierRepository.save(supplier));
+		water.setStock(10_000);
+		water = productService.createProduct(water);
+	}
+
+	@Test
+	void concurrentFirstInvoicesOfANewStatusAreAllCounted() throws Exception {
+		runConcurrently(thread -> invoiceService.createInvoice(invoice("disputed")));
+
+		InvoiceStatusTotal disputed = statusTotalRepository.findById("disputed").orElseThrow();
+		assertThat(disputed.getInvoiceCount()).isEqualTo(THREADS);
+		assertThat(disputed.getTotal()).isEqualByComparingTo(new BigDecimal(50 * THREADS));
+		assertThat(invoiceStatsService.reconcile().getDrifts()).isEmpty();
+	}
+
+	@Test
+	void oppositeStatusChangesAtOnceAllSucceed() throws Exception {
+		List<Long> paid = new ArrayList<>();
+		List<Long> pending = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			paid.add(invoiceService.createInvoice(invoice("paid")).getId());
+			pending.add(invoiceService.createInvoice(invoice("pending")).getId());
+		}
+
+		// Half the threads move paid invoices to pending while the other half move pending ones to paid
+		runConcurrently(thread -> thread % 2 == 0
+				? invoiceService.updateInvoiceStatus(paid.get(thread), "pending")
+				: invoiceService.updateInvoiceStatus(pending.get(thread), "paid"));
+
+		assertThat(invoiceStatsService.reconcile().getDrifts()).isEmpty();
+	}
+
+	@Test
+	void statusChangesUpdateTheirRowsInStatusOrder() {
+		InvoiceStatusTotalRepository rows = mock(InvoiceStatusTotalRepository.class);
+		when(rows.adjust(anyString(), anyLong(), any())).thenReturn(1);
+		InvoiceStatsService stats = new InvoiceStatsService(rows, null, mock(PlatformTransactionManager.class));
+
+		stats.recordChanged("paid", BigDecimal.TEN, "pending", BigDecimal.TEN);
+		stats.recordChanged("pending", BigDecimal.ONE, "paid", BigDecimal.ONE);
+
+		// Either direction locks "paid" before "pending", so two opposite changes cannot deadlock
+		InOrder order = inOrder(rows);
+		order.verify(rows).adjust("paid", -1, BigDecimal.TEN.negate());
+		order.verify(rows).adjust("pending", 1, BigDecimal.TEN);
+		order.verify(rows).adjust("paid", 1, BigDecimal.ONE);
+		order.verify(rows).adjust("pending", -1, BigDecimal.ONE.negate());
+	}
+
+	@Test
+	void rowCreatedConcurrentlyForANewStatusIsIncremented() {
+		InvoiceStatusTotalRepository rows = mock(InvoiceStatusTotalRepository.class);
+		when(rows.adjust("disputed", 1, BigDecimal.TEN)).thenReturn(0, 1);
+		when(rows.insertEmpty("disputed")).thenThrow(new DataIntegrityViolationException("duplicate key"));
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		InvoiceStatsService stats = new InvoiceStatsService(rows, null, transactionManager);
+
+		stats.recordAdded("disputed", BigDecimal.TEN);
+
+		verify(rows, times(2)).adjust("disputed", 1, BigDecimal.TEN);
+	}
+
+	private InvoiceRequest invoice(String status) {
+		InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+		line.setProductId(water.getId());
+		line.setQuantity(1);
+		line.setPrice(water.getPrice());
+		InvoiceRequest request = new InvoiceRequest();
+		request.setClientId(client.getId());
+		request.setDate(LocalDateTime.of(2026, 6, 1, 10, 0));
+		request.setStatus(status);
+		request.setItems(List.of(line));
+		return request;
+	}
+
+	// Starts every thread at the same instant and fails on the first write that failed
+	private void runConcurrently(ThreadWrite write) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				int threadId = thread;
+				Callable<Object> task = () -> {
+					start.await();
+					return write.run(threadId);
+				};
+				futures.add(executor.submit(task));
+			}
+			start.countDown();
+			for (Future<Object> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private interface ThreadWrite {
+		Object run(int thread);
+	}
+
+}
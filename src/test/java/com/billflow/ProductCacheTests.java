@@ -0,0 +1,143 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.Client;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.ProductRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceService;
+import com.billflow.service.ProductService;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:product-cache",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class ProductCacheTests {
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Client client;
+
+	private Supplier supplier;
+
+	@BeforeEach
+	void setUp() {
+		// Every test context shares one JCache cache manager, and the other contexts' databases reuse these ids
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+		client = new Client();
+		client.setName("Cache Client");
+		client.setPhone("9700000000");
+		client = clientRepository.save(client);
+
+		supplier = new Supplier();
+		supplier.setName("Cache Supplier");
+		supplier.setPhone("9700000001");
+		supplier = supplierRepository.save(supplier);
+	}
+
+	@Test
+	void saleEvictsOnlyTheSoldProduct() {
+		Product sold = product("Cache Sold Grease", "Cache Grease", 10);
+		Product other = product("Cache Other Grease", "Cache Grease", 10);
+		Cache cache = entityManagerFactory.getCache();
+		productRepository.findById(sold.getId());
+		productRepository.findById(other.getId());
+		assertThat(productRepository.findByCategory("Cache Grease")).hasSize(2);
+		assertThat(cache.contains(Product.class, sold.getId())).isTrue();
+		assertThat(cache.contains(Product.class, other.getId())).isTrue();
+
+		invoiceService.createInvoice(invoiceFor(sold, 3));
+
+		assertThat(cache.contains(Product.class, sold.getId())).isFalse();
+		assertThat(cache.contains(Product.class, other.getId())).isTrue();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		// The cached category listing survives the sale and shows the new stock
+		assertThat(productRepository.findByCategory("Cache Grease"))
+				.extracting(Product::getName, Product::getStock)
+				.containsExactlyInAnyOrder(tuple("Cache Sold Grease", 7), tuple("Cache Other Grease", 10));
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		assertThat(productRepository.findById(sold.getId()).orElseThrow().getStock()).isEqualTo(7);
+	}
+
+	@Test
+	void rejectedSaleLeavesTheCommittedStockCached() {
+		Product product = product("Cache Short Grease", "Cache Short", 2);
+		invoiceService.createInvoice(invoiceFor(product, 1));
+		assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isEqualTo(1);
+
+		// The first line sells, the second finds too little left, and the invoice rolls back
+		InvoiceRequest request = invoiceFor(product, 1);
+		InvoiceRequest.InvoiceItemRequest second = new InvoiceRequest.InvoiceItemRequest();
+		second.setProductId(product.getId());
+		second.setQuantity(1);
+		second.setPrice(product.getPrice());
+		request.setItems(List.of(request.getItems().get(0), second));
+		assertThatThrownBy(() -> invoiceService.createInvoice(request)).hasMessageStartingWith("Insufficient stock");
+
+		Product cached = productRepository.findById(product.getId()).orElseThrow();
+		assertThat(cached.getStock()).isEqualTo(1);
+		assertThat(cached.getSoldCount()).isEqualTo(1);
+	}
+
+	private Product product(String name, String category, int stock) {
+		Product product = new Product();
+		product.setName(name);
+		product.setCategory(category);
+		product.setPrice(new BigDecimal("40"));
+		product.setSupplier(supplier);
+		product.setStock(stock);
+		return productService.createProduct(product);
+	}
+
+	private InvoiceRequest invoiceFor(Product product, int quantity) {
+		InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+		line.setProductId(product.getId());
+		line.setQuantity(quantity);
+		line.setPrice(product.getPrice());
+
+		InvoiceRequest request = new InvoiceRequest();
+		request.setClientId(client.getId());
+		request.setDate(LocalDateTime.now());
+		request.setItems(List.of(line));
+		return request;
+	}
+
+}
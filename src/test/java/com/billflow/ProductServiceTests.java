@@ -0,0 +1,56 @@
+package com.billflow;
+
+import com.billflow.model.InventorySerial;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.InventorySerialRepository;
+import com.billflow.repository.ProductRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ProductServiceTests {
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InventorySerialRepository inventorySerialRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Test
+	void deletingABatteryRemovesItsSerialStock() {
+		Supplier supplier = new Supplier();
+		supplier.setName("Delete Test Supplier");
+		supplier.setPhone("9200000000");
+		Product battery = new Product();
+		battery.setName("Delete Test Battery");
+		battery.setCategory("Car Battery");
+		battery.setPrice(new BigDecimal("4500"));
+		battery.setSupplier(supplierRepository.save(supplier));
+		battery.setIsBattery(true);
+		battery.setSerialNumbers(new ArrayList<>(List.of("DEL-1", "DEL-2")));
+		Long id = productService.createProduct(battery).getId();
+		assertThat(inventorySerialRepository.countByProductIdAndStatus(id, InventorySerial.IN_STOCK)).isEqualTo(2);
+
+		productService.deleteProduct(id);
+
+		assertThat(productRepository.existsById(id)).isFalse();
+		assertThat(inventorySerialRepository.findStates(List.of("DEL-1", "DEL-2"))).isEmpty();
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.billflow;
+
+import com.billflow.config.RequestQueryStats;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// MockMvc expectations on the SQL a request ran, counted by RequestQueryStatsFilter, e.g.
+// mockMvc.perform(get("/api/products")).andExpect(QueryBudget.maxStatements(2));
+// Failures list the statement fingerprints of the request
+final class QueryBudget {
+
+	private QueryBudget() {
+	}
+
+	static ResultMatcher maxStatements(int max) {
+		return result -> assertThat(stats(result).getStatements())
+				.as("SQL statements of %s", describe(result))
+				.isLessThanOrEqualTo(max);
+	}
+
+	// One means no statement ran twice, i.e. no N+1 loop
+	static ResultMatcher maxRepeats(int max) {
+		return result -> assertThat(stats(result).getMaxRepeats())
+				.as("Repeats of one SQL statement in %s", describe(result))
+				.isLessThanOrEqualTo(max);
+	}
+
+	static RequestQueryStats stats(MvcResult result) {
+		RequestQueryStats stats = RequestQueryStats.of(result.getRequest());
+		assertThat(stats).as("Query stats of the request").isNotNull();
+		return stats;
+	}
+
+	private static String describe(MvcResult result) {
+		return result.getRequest().getMethod() + " " + result.getRequest().getRequestURI() + ", by fingerprint:\n"
+				+ stats(result).getFingerprints().entrySet().stream()
+						.map(entry -> entry.getValue() + "x " + entry.getKey())
+						.collect(Collectors.joining("\n"));
+	}
+
+}
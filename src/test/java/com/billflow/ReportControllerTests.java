@@ -0,0 +1,75 @@
+package com.billflow;
+
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class ReportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Test
+	void productPerformanceClampsPageAndSize() throws Exception {
+		mockMvc.perform(get("/api/reports/product-performance")
+						.param("startDate", "2024-01-01T00:00:00")
+						.param("endDate", "2024-12-31T23:59:59")
+						.param("page", "-1")
+						.param("size", "0"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.page.number").value(0))
+				.andExpect(jsonPath("$.page.size").value(1));
+
+		mockMvc.perform(get("/api/reports/product-performance")
+						.param("startDate", "2024-01-01T00:00:00")
+						.param("endDate", "2024-12-31T23:59:59")
+						.param("size", "10000"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.page.size").value(500));
+	}
+
+	@Test
+	void serialReportClampsLimit() throws Exception {
+		Supplier supplier = new Supplier();
+		supplier.setName("Report Limit Supplier");
+		supplier.setPhone("9100000000");
+		Product battery = new Product();
+		battery.setName("Report Limit Battery");
+		battery.setCategory("Car Battery");
+		battery.setPrice(new BigDecimal("4000"));
+		battery.setSupplier(supplierRepository.save(supplier));
+		battery.setIsBattery(true);
+		battery.setSerialNumbers(new ArrayList<>(List.of("RLIM-1", "RLIM-2", "RLIM-3")));
+		productService.createProduct(battery);
+
+		for (String limit : new String[] {"0", "-5"}) {
+			mockMvc.perform(get("/api/reports/serial/{serialNumber}", "RLIM-").param("limit", limit))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.length()").value(1))
+					.andExpect(jsonPath("$[0].actualSerialNumber").value("RLIM-1"));
+		}
+	}
+
+}
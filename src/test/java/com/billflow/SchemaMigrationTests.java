@@ -0,0 +1,126 @@
+package com.billflow;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the Flyway migrations on H2 in PostgreSQL mode and checks that Hibernate accepts the resulting schema and
+// that the report queries are planned on the date-range indexes rather than as table scans
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:migrations;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+		"spring.flyway.enabled=true",
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.show-sql=false"
+})
+class SchemaMigrationTests {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void migrationsApplyAndMatchTheEntities() {
+		// The context only starts once ddl-auto=validate has accepted the migrated schema
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("7");
+	}
+
+	@Test
+	void salesSummaryUsesTheDateIndex() {
+		assertThat(plan("SELECT LOWER(status), COUNT(*), SUM(total) FROM invoices " +
+				"WHERE date >= TIMESTAMP '2026-01-01 00:00:00' AND date <= TIMESTAMP '2026-12-31 23:59:59' " +
+				"GROUP BY LOWER(status)"))
+			.contains("idx_invoices_date");
+	}
+
+	@Test
+	void statusListingUsesTheStatusDateIndex() {
+		assertThat(plan("SELECT id, invoice_number, total FROM invoices " +
+				"WHERE status = 'pending' AND date >= TIMESTAMP '2026-01-01 00:00:00' ORDER BY date DESC, id DESC"))
+			.contains("idx_invoices_status_date");
+	}
+
+	@Test
+	void clientListingUsesTheClientDateIndex() {
+		assertThat(plan("SELECT id, invoice_number, total FROM invoices " +
+				"WHERE client_id = 1 AND date >= TIMESTAMP '2026-01-01 00:00:00' ORDER BY date DESC, id DESC"))
+			.contains("idx_invoices_client_date");
+	}
+
+	@Test
+	void productPerformanceJoinsLinesByProduct() {
+		// H2 indexes foreign keys by itself and may plan on that index; PostgreSQL does not, hence the explicit one
+		assertThat(plan("SELECT SUM(ii.quantity) FROM invoice_items ii WHERE ii.product_id = 1"))
+			.contains("product_id = ");
+		assertThat(jdbcTemplate.queryForList(
+				"SELECT index_name FROM information_schema.indexes WHERE table_name = 'invoice_items'", String.class))
+			.contains("idx_invoice_items_product");
+	}
+
+	@Test
+	void expiringWarrantiesUseTheStatusEndIndex() {
+		assertThat(plan("SELECT serial_number FROM battery_serials WHERE warranty_status = 'active' " +
+				"AND warranty_end_date > TIMESTAMP '2026-01-01 00:00:00' " +
+				"AND warranty_end_date <= TIMESTAMP '2026-01-31 00:00:00' ORDER BY warranty_end_date, id"))
+			.contains("idx_battery_serials_status_end");
+	}
+
+	@Test
+	void warrantyExpiryUsesTheEndDateIndex() {
+		assertThat(plan("SELECT serial_number FROM battery_serials " +
+				"WHERE warranty_end_date >= TIMESTAMP '2026-01-01 00:00:00' " +
+				"AND warranty_end_date < TIMESTAMP '2026-02-01 00:00:00'"))
+			.contains("idx_battery_serials_warranty_end");
+	}
+
+	@Test
+	void legacySerialsAreCopiedOnceSkippingMissingProducts() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:legacy-serials;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate legacy = new JdbcTemplate(dataSource);
+		Flyway.configure().dataSource(dataSource).target("4").load().migrate();
+		legacy.execute("CREATE TABLE product_serials (product_id BIGINT NOT NULL, serial_number VARCHAR(255), " +
+				"serial_order INTEGER NOT NULL)");
+		legacy.update("INSERT INTO products (id, name, price, category, is_battery, warranty_duration_months, stock) " +
+				"VALUES (1, 'Legacy Battery', 5000, 'Car Battery', TRUE, 24, 2)");
+		legacy.update("INSERT INTO product_serials VALUES (1, 'LEG-1', 0), (1, 'LEG-2', 1), (99, 'ORPHAN-1', 0)");
+
+		Flyway.configure().dataSource(dataSource).load().migrate();
+
+		assertThat(legacy.queryForList("SELECT serial_number FROM inventory_serials " +
+				"WHERE product_id = 1 AND status = 'in_stock' ORDER BY id", String.class))
+			.containsExactly("LEG-1", "LEG-2");
+		assertThat(legacy.queryForObject("SELECT COUNT(*) FROM inventory_serials", Long.class)).isEqualTo(2);
+	}
+
+	@Test
+	void idSequencesMovePastIdsFromBeforeTheSequences() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:legacy-ids;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate legacy = new JdbcTemplate(dataSource);
+		Flyway.configure().dataSource(dataSource).target("6").load().migrate();
+		legacy.update("INSERT INTO clients (id, name, phone) VALUES (1, 'Legacy Client', '9000000000')");
+		legacy.update("INSERT INTO invoices (id, invoice_number, client_id, date, tax, discount, subtotal, total, status) " +
+				"VALUES (500, 'INV-LEGACY-500', 1, TIMESTAMP '2024-01-01 00:00:00', 0, 0, 100, 100, 'paid')");
+
+		Flyway.configure().dataSource(dataSource).load().migrate();
+
+		// The next block the pooled optimizer takes, (value - 50, value], starts above the legacy id
+		assertThat(legacy.queryForObject("SELECT nextval('invoices_seq')", Long.class) - 50).isGreaterThan(500);
+		assertThat(legacy.queryForObject("SELECT nextval('invoice_items_seq')", Long.class)).isEqualTo(1);
+	}
+
+	private String plan(String sql) {
+		String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+		assertThat(plan).doesNotContain("tableScan");
+		return plan;
+	}
+
+}
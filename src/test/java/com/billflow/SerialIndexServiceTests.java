@@ -0,0 +1,113 @@
+package com.billflow;
+
+import com.billflow.repository.InventorySerialRepository;
+import com.billflow.repository.InvoiceItemRepository;
+import com.billflow.service.SerialIndexService;
+import com.billflow.service.SerialIndexService.SerialMatch;
+import com.billflow.service.SerialIndexService.SerialsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SerialIndexServiceTests {
+
+	private final InventorySerialRepository inventorySerialRepository = mock(InventorySerialRepository.class);
+
+	private final InvoiceItemRepository invoiceItemRepository = mock(InvoiceItemRepository.class);
+
+	private final SerialIndexService index = new SerialIndexService(inventorySerialRepository, invoiceItemRepository);
+
+	@BeforeEach
+	void stubSoldSerials() {
+		when(invoiceItemRepository.findAllSerialNumbers()).thenReturn(List.of());
+		when(invoiceItemRepository.findSerialNumbersByProductIds(anyCollection())).thenReturn(List.of());
+	}
+
+	@Test
+	void searchPagesThroughMatchesInSerialOrder() {
+		List<Object[]> inStock = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			inStock.add(new Object[] {1L, String.format("AMR-%03d", 99 - i)});
+		}
+		inStock.add(new Object[] {2L, "EXI-001"});
+		when(inventorySerialRepository.findAllInStockSerialNumbers()).thenReturn(inStock);
+		index.rebuild();
+
+		List<SerialMatch> first = index.search("amr-0", null, 10);
+		assertThat(first).extracting(SerialMatch::serialNumber)
+				.containsExactly("AMR-000", "AMR-001", "AMR-002", "AMR-003", "AMR-004",
+						"AMR-005", "AMR-006", "AMR-007", "AMR-008", "AMR-009");
+		assertThat(index.search("amr-0", "AMR-009", 3)).extracting(SerialMatch::serialNumber)
+				.containsExactly("AMR-010", "AMR-011", "AMR-012");
+		assertThat(index.search("r-09", "AMR-097", 10)).extracting(SerialMatch::serialNumber)
+				.containsExactly("AMR-098", "AMR-099");
+		assertThat(index.search("amr-1", null, 10)).isEmpty();
+	}
+
+	@Test
+	void rebuildKeepsChangesAppliedWhileItsSnapshotLoads() {
+		List<Object[]> snapshot = List.<Object[]>of(new Object[] {1L, "OLD-001"});
+		List<Object[]> changed = List.<Object[]>of(new Object[] {1L, "NEW-001"});
+		when(inventorySerialRepository.findInStockSerialNumbersByProductIds(anyCollection())).thenReturn(changed);
+		// The product changes after the snapshot query read it, and the change event lands before the swap
+		when(inventorySerialRepository.findAllInStockSerialNumbers()).thenAnswer(invocation -> {
+			index.onSerialsChanged(new SerialsChangedEvent(Set.of(1L)));
+			return snapshot;
+		});
+
+		index.rebuild();
+
+		assertThat(index.search("new", null, 10)).extracting(SerialMatch::serialNumber).containsExactly("NEW-001");
+		assertThat(index.search("old", null, 10)).isEmpty();
+	}
+
+	@Test
+	void olderProductReadNeverOverwritesANewerOne() {
+		when(inventorySerialRepository.findAllInStockSerialNumbers()).thenReturn(List.of());
+		index.rebuild();
+		List<Object[]> older = List.<Object[]>of(new Object[] {1L, "OLD-001"});
+		List<Object[]> newer = List.<Object[]>of(new Object[] {1L, "NEW-001"});
+		// The first commit's read is slow: the second commit's read and apply both finish while it runs
+		AtomicInteger reads = new AtomicInteger();
+		when(inventorySerialRepository.findInStockSerialNumbersByProductIds(anyCollection()))
+				.thenAnswer(invocation -> {
+					if (reads.incrementAndGet() > 1) {
+						return newer;
+					}
+					index.onSerialsChanged(new SerialsChangedEvent(Set.of(1L)));
+					return older;
+				});
+
+		index.onSerialsChanged(new SerialsChangedEvent(Set.of(1L)));
+
+		assertThat(index.search("new", null, 10)).extracting(SerialMatch::serialNumber).containsExactly("NEW-001");
+		assertThat(index.search("old", null, 10)).isEmpty();
+	}
+
+	@Test
+	void productReadOlderThanARebuildIsNotApplied() {
+		when(inventorySerialRepository.findAllInStockSerialNumbers())
+				.thenReturn(List.<Object[]>of(new Object[] {1L, "NEW-001"}));
+		// A full rebuild starts and finishes while the product read is in flight
+		when(inventorySerialRepository.findInStockSerialNumbersByProductIds(anyCollection()))
+				.thenAnswer(invocation -> {
+					index.rebuild();
+					return List.<Object[]>of(new Object[] {1L, "OLD-001"});
+				});
+
+		index.onSerialsChanged(new SerialsChangedEvent(Set.of(1L)));
+
+		assertThat(index.search("new", null, 10)).extracting(SerialMatch::serialNumber).containsExactly("NEW-001");
+		assertThat(index.search("old", null, 10)).isEmpty();
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.billflow;
+
+import com.billflow.config.MetricsConfig;
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.Client;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class ServiceMetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Test
+	void invoiceCreationIsTimedAndItsQueriesCounted() throws Exception {
+		Client client = new Client();
+		client.setName("Metrics Client");
+		client.setPhone("9100000000");
+		client = clientRepository.save(client);
+
+		Supplier supplier = new Supplier();
+		supplier.setName("Metrics Supplier");
+		supplier.setPhone("9100000001");
+		supplier = supplierRepository.save(supplier);
+
+		Product water = new Product();
+		water.setName("Metrics Distilled Water");
+		water.setCategory("Accessories");
+		water.setPrice(new BigDecimal("50"));
+		water.setSupplier(supplier);
+		water.setStock(100);
+		water = productService.createProduct(water);
+
+		InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+		line.setProductId(water.getId());
+		line.setQuantity(2);
+		line.setPrice(new BigDecimal("50"));
+		InvoiceRequest request = new InvoiceRequest();
+		request.setClientId(client.getId());
+		request.setDate(LocalDateTime.now());
+		request.setItems(List.of(line));
+
+		mockMvc.perform(post("/api/invoices")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsBytes(request)))
+				.andExpect(status().isCreated());
+
+		Timer createInvoice = meterRegistry.get(MetricsConfig.SERVICE_TIMER)
+				.tags("class", "InvoiceService", "method", "createInvoice", "exception", "none")
+				.timer();
+		Timer reserve = meterRegistry.get(MetricsConfig.SERVICE_TIMER)
+				.tags("class", "InventoryService", "method", "reserve")
+				.timer();
+		assertThat(createInvoice.count()).isEqualTo(1);
+		assertThat(reserve.count()).isEqualTo(1);
+		// The invoice timing wraps the stock update it made
+		assertThat(createInvoice.totalTime(TimeUnit.NANOSECONDS))
+				.isGreaterThan(reserve.totalTime(TimeUnit.NANOSECONDS));
+
+		DistributionSummary statements = meterRegistry.get(MetricsConfig.REQUEST_STATEMENTS)
+				.tags("method", "POST", "uri", "/api/invoices")
+				.summary();
+		assertThat(statements.count()).isEqualTo(1);
+		assertThat(statements.totalAmount()).isPositive();
+		assertThat(meterRegistry.get(MetricsConfig.REQUEST_ENTITIES_LOADED)
+				.tags("method", "POST", "uri", "/api/invoices")
+				.summary().totalAmount()).isPositive();
+
+		String scrape = mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertThat(scrape).contains("billflow_service_seconds_bucket", "billflow_request_statements_count");
+	}
+}
@@ -0,0 +1,183 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.Client;
+import com.billflow.model.InventorySerial;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.InventorySerialRepository;
+import com.billflow.repository.ProductRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceService;
+import com.billflow.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class StockConcurrencyTests {
+
+	private static final int COUNTERS = 8;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InventorySerialRepository inventorySerialRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	private Client client;
+
+	private Supplier supplier;
+
+	@BeforeEach
+	void setUp() {
+		client = new Client();
+		client.setName("Counter Client");
+		client.setPhone("9100000000");
+		client = clientRepository.save(client);
+
+		supplier = new Supplier();
+		supplier.setName("Counter Supplier");
+		supplier.setPhone("9100000001");
+		supplier = supplierRepository.save(supplier);
+	}
+
+	@Test
+	void concurrentSalesNeverOversellQuantityStock() throws Exception {
+		Product product = new Product();
+		product.setName("Counter Terminal Grease");
+		product.setCategory("Accessories");
+		product.setPrice(new BigDecimal("40"));
+		product.setSupplier(supplier);
+		product.setStock(40);
+		Long productId = productService.createProduct(product).getId();
+
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		runOnCounters(10, counter -> {
+			try {
+				invoiceService.createInvoice(invoiceFor(productId, 1, null));
+				sold.incrementAndGet();
+			} catch (RuntimeException e) {
+				assertThat(e).hasMessageStartingWith("Insufficient stock");
+				rejected.incrementAndGet();
+			}
+		});
+
+		assertThat(sold.get()).isEqualTo(40);
+		assertThat(rejected.get()).isEqualTo(COUNTERS * 10 - 40);
+		assertThat(productRepository.findById(productId).orElseThrow().getStock()).isZero();
+	}
+
+	@Test
+	void concurrentSalesNeverSellASerialTwice() throws Exception {
+		List<String> serials = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			serials.add("CC-" + i);
+		}
+		Product battery = new Product();
+		battery.setName("Counter Battery");
+		battery.setCategory("Car Battery");
+		battery.setPrice(new BigDecimal("4500"));
+		battery.setSupplier(supplier);
+		battery.setIsBattery(true);
+		battery.setSerialNumbers(new ArrayList<>(serials));
+		Long productId = productService.createProduct(battery).getId();
+
+		Map<String, Integer> soldBy = new ConcurrentHashMap<>();
+		AtomicInteger duplicates = new AtomicInteger();
+		runOnCounters(10, counter -> {
+			// Counters pick overlapping pairs so most attempts race for the same serials
+			List<String> pool = new ArrayList<>(serials.subList(0, 12));
+			Collections.shuffle(pool, new Random(counter));
+			List<String> pair = pool.subList(0, 2);
+			try {
+				invoiceService.createInvoice(invoiceFor(productId, 2, pair));
+				for (String serial : pair) {
+					if (soldBy.put(serial, counter) != null) {
+						duplicates.incrementAndGet();
+					}
+				}
+			} catch (RuntimeException e) {
+				assertThat(e).hasMessageStartingWith("Serial number not available in stock");
+			}
+		});
+
+		assertThat(duplicates.get()).isZero();
+		long inStock = inventorySerialRepository.countByProductIdAndStatus(productId, InventorySerial.IN_STOCK);
+		assertThat(inStock).isEqualTo(serials.size() - soldBy.size());
+		assertThat(productRepository.findById(productId).orElseThrow().getStock()).isEqualTo((int) inStock);
+	}
+
+	private InvoiceRequest invoiceFor(Long productId, int quantity, List<String> serialNumbers) {
+		InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+		line.setProductId(productId);
+		line.setQuantity(quantity);
+		line.setPrice(new BigDecimal("40"));
+		line.setSerialNumbers(serialNumbers);
+
+		InvoiceRequest request = new InvoiceRequest();
+		request.setClientId(client.getId());
+		request.setDate(LocalDateTime.now());
+		request.setItems(List.of(line));
+		return request;
+	}
+
+	// Starts every counter at the same instant and has each one run the sale repeatedly
+	private void runOnCounters(int salesPerCounter, CounterSale sale) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(COUNTERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int counter = 0; counter < COUNTERS; counter++) {
+			int counterId = counter;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < salesPerCounter; i++) {
+					sale.run(counterId * salesPerCounter + i);
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(1, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+	}
+
+	private interface CounterSale {
+		void run(int counter);
+	}
+
+}
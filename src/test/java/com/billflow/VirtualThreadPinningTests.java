@@ -0,0 +1,71 @@
+package com.billflow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// On a virtual thread, blocking inside a synchronized method or block pins its carrier thread until the call
+// returns (up to Java 23), so a JDBC call made while holding a monitor stalls other requests. Application code
+// uses java.util.concurrent locks instead; this fails on any synchronized method or block, including Lombok's
+// @Synchronized, in the application classes
+class VirtualThreadPinningTests {
+
+	@Test
+	void applicationCodeHoldsNoMonitors() throws Exception {
+		Path classes = Path.of(BillflowApplication.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		List<String> synchronizedCode = new ArrayList<>();
+		try (Stream<Path> files = Files.walk(classes)) {
+			for (Path file : files.filter(path -> path.toString().endsWith(".class")).toList()) {
+				synchronizedCode.addAll(synchronizedCode(file));
+			}
+		}
+		assertThat(synchronizedCode).as("synchronized methods and blocks").isEmpty();
+	}
+
+	private static List<String> synchronizedCode(Path file) throws IOException {
+		List<String> found = new ArrayList<>();
+		try (InputStream in = Files.newInputStream(file)) {
+			new ClassReader(in).accept(new ClassVisitor(Opcodes.ASM9) {
+
+				private String className;
+
+				@Override
+				public void visit(int version, int access, String name, String signature, String superName,
+						String[] interfaces) {
+					className = name.replace('/', '.');
+				}
+
+				@Override
+				public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+						String[] exceptions) {
+					String method = className + "." + name;
+					if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+						found.add(method);
+					}
+					return new MethodVisitor(Opcodes.ASM9) {
+						@Override
+						public void visitInsn(int opcode) {
+							if (opcode == Opcodes.MONITORENTER) {
+								found.add(method + " (synchronized block)");
+							}
+						}
+					};
+				}
+			}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		}
+		return found;
+	}
+
+}
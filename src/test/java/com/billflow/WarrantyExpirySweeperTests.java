@@ -0,0 +1,193 @@
+package com.billflow;
+
+import com.billflow.dto.InvoiceRequest;
+import com.billflow.model.BatterySerial;
+import com.billflow.model.Client;
+import com.billflow.model.JobLock;
+import com.billflow.model.Product;
+import com.billflow.model.Supplier;
+import com.billflow.repository.BatterySerialRepository;
+import com.billflow.repository.ClientRepository;
+import com.billflow.repository.JobLockRepository;
+import com.billflow.repository.SupplierRepository;
+import com.billflow.service.InvoiceService;
+import com.billflow.service.JobLockService;
+import com.billflow.service.ProductService;
+import com.billflow.service.WarrantyExpirySweeper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Chunks of two warranties, so a sweep runs several chunk transactions and renews its lease in between. The
+// schedule is switched off so only the tests sweep
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:warranty-expiry",
+		"spring.jpa.show-sql=false",
+		"billflow.warranty-expiry.chunk-size=2",
+		"billflow.warranty-expiry.cron=-"
+})
+class WarrantyExpirySweeperTests {
+
+	private static final String LOCK_NAME = "warranty-expiry";
+
+	private static final String OTHER_OWNER = "other-instance";
+
+	@Autowired
+	private WarrantyExpirySweeper warrantyExpirySweeper;
+
+	@Autowired
+	private JobLockService jobLockService;
+
+	@Autowired
+	private JobLockRepository jobLockRepository;
+
+	@Autowired
+	private BatterySerialRepository batterySerialRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private SupplierRepository supplierRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void sweepExpiresLapsedWarrantiesOnceAndCountsThem() {
+		sell("EXP", LocalDateTime.now().minusYears(2), 5);
+		sell("CUR", LocalDateTime.now().minusMonths(1), 2);
+		double counted = transitioned();
+
+		assertThat(warrantyExpirySweeper.sweep()).isEqualTo(5);
+		assertThat(warrantyExpirySweeper.sweep()).isZero();
+
+		assertThat(transitioned() - counted).isEqualTo(5);
+		assertThat(statuses("EXP", 5)).containsOnly("expired");
+		assertThat(statuses("CUR", 2)).containsOnly("active");
+		// The finished sweep hands the lease back
+		assertThat(jobLockRepository.findById(LOCK_NAME).orElseThrow().getLockedUntil()).isBeforeOrEqualTo(LocalDateTime.now());
+	}
+
+	@Test
+	void sweepIsSkippedWhileAnotherInstanceHoldsTheLease() {
+		sell("HELD", LocalDateTime.now().minusYears(2), 3);
+		hold(LOCK_NAME, OTHER_OWNER, LocalDateTime.now().plusMinutes(30));
+		double counted = transitioned();
+		try {
+			assertThat(warrantyExpirySweeper.sweep()).isZero();
+			assertThat(transitioned()).isEqualTo(counted);
+			assertThat(statuses("HELD", 3)).containsOnly("active");
+		} finally {
+			transactionTemplate.executeWithoutResult(status ->
+					jobLockRepository.release(LOCK_NAME, OTHER_OWNER, LocalDateTime.now()));
+		}
+
+		assertThat(warrantyExpirySweeper.sweep()).isEqualTo(3);
+	}
+
+	@Test
+	void activeLeaseCannotBeTakenByASecondHolder() {
+		assertThat(jobLockService.tryLock("lease-test", Duration.ofMinutes(5))).isTrue();
+		assertThat(jobLockService.tryLock("lease-test", Duration.ofMinutes(5))).isFalse();
+		assertThat(jobLockService.renew("lease-test", Duration.ofMinutes(5))).isTrue();
+
+		jobLockService.unlock("lease-test");
+		assertThat(jobLockService.tryLock("lease-test", Duration.ofMinutes(5))).isTrue();
+		jobLockService.unlock("lease-test");
+	}
+
+	@Test
+	void leaseHeldElsewhereIsNeitherTakenReleasedNorRenewed() {
+		hold("foreign-lease", OTHER_OWNER, LocalDateTime.now().plusMinutes(30));
+
+		assertThat(jobLockService.tryLock("foreign-lease", Duration.ofMinutes(5))).isFalse();
+		assertThat(jobLockService.renew("foreign-lease", Duration.ofMinutes(5))).isFalse();
+		jobLockService.unlock("foreign-lease");
+		assertThat(jobLockRepository.findById("foreign-lease").orElseThrow().getLockedBy()).isEqualTo(OTHER_OWNER);
+		assertThat(jobLockService.tryLock("foreign-lease", Duration.ofMinutes(5))).isFalse();
+	}
+
+	@Test
+	void expiredLeaseIsTakenOverAndNoLongerRenewableByItsOldHolder() {
+		hold("expired-lease", OTHER_OWNER, LocalDateTime.now().minusMinutes(1));
+
+		assertThat(jobLockService.tryLock("expired-lease", Duration.ofMinutes(5))).isTrue();
+		assertThat(jobLockRepository.findById("expired-lease").orElseThrow().getLockedBy()).isNotEqualTo(OTHER_OWNER);
+		Integer renewed = transactionTemplate.execute(status -> jobLockRepository.renew("expired-lease",
+				LocalDateTime.now(), LocalDateTime.now().plusMinutes(5), OTHER_OWNER));
+		assertThat(renewed).isZero();
+		jobLockService.unlock("expired-lease");
+	}
+
+	private void hold(String name, String owner, LocalDateTime lockedUntil) {
+		jobLockRepository.save(new JobLock(name, lockedUntil, owner));
+	}
+
+	private void sell(String serialPrefix, LocalDateTime date, int count) {
+		List<String> serialNumbers = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			serialNumbers.add(serialPrefix + "-" + i);
+		}
+		Supplier supplier = new Supplier();
+		supplier.setName(serialPrefix + " Supplier");
+		supplier.setPhone("9600000001");
+		Product battery = new Product();
+		battery.setName(serialPrefix + " Battery");
+		battery.setCategory("Car Battery");
+		battery.setPrice(new BigDecimal("5000"));
+		battery.setSupplier(supplierRepository.save(supplier));
+		battery.setIsBattery(true);
+		battery.setSerialNumbers(new ArrayList<>(serialNumbers));
+		battery = productService.createProduct(battery);
+
+		Client client = new Client();
+		client.setName(serialPrefix + " Client");
+		client.setPhone("9600000000");
+		InvoiceRequest.InvoiceItemRequest line = new InvoiceRequest.InvoiceItemRequest();
+		line.setProductId(battery.getId());
+		line.setQuantity(count);
+		line.setPrice(battery.getPrice());
+		line.setSerialNumbers(serialNumbers);
+		InvoiceRequest request = new InvoiceRequest();
+		request.setClientId(clientRepository.save(client).getId());
+		request.setDate(date);
+		request.setStatus("Paid");
+		request.setItems(List.of(line));
+		invoiceService.createInvoice(request);
+	}
+
+	private List<String> statuses(String serialPrefix, int count) {
+		List<String> serialNumbers = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			serialNumbers.add(serialPrefix + "-" + i);
+		}
+		List<BatterySerial> warranties = batterySerialRepository.findBySerialNumbers(serialNumbers);
+		assertThat(warranties).hasSize(count);
+		return warranties.stream().map(BatterySerial::getWarrantyStatus).toList();
+	}
+
+	private double transitioned() {
+		return meterRegistry.counter("billflow.warranty.expiry.transitioned").count();
+	}
+
+}
@@ -0,0 +1,2 @@
+-- Tests build the schema with ddl-auto instead of Flyway; this adds what only the migrations create
+create sequence if not exists invoice_number_seq start with 100 increment by 100;